@@ -0,0 +1,206 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.Settings;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.CourseFullException;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.CCRMService;
+import edu.ccrm.service.ColumnarEnrollmentStore;
+import edu.ccrm.service.EnrollmentQuery;
+import edu.ccrm.service.GroupBy;
+import edu.ccrm.util.AppendOnlyList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the service and I/O hot paths, run against synthetic data of each size
+ * (enrollment count). Every benchmark and size runs in its own forked JVM.
+ *
+ * Lookups are reported in ns/op; whole-file operations (CSV export/import, aggregates over
+ * all enrollments) in ms/op. enrollStudent enrolls batches of held-back enrollments and drops
+ * them again after each iteration, so every measured call succeeds. See bench/README.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g") // 10M enrollments need a large heap
+public class Benchmarks {
+
+    private static final long SEED = 42;
+    private static final int ENROLL_BATCH = 100;
+
+    @Param({ "1000", "100000", "10000000" })
+    public int size;
+
+    private CCRMService service;
+    private PrintStream console;
+
+    // Random student ids and course-code prefixes, cycled through by the lookups
+    private final int[] ids = new int[4096];
+    private final String[] prefixes = new String[256];
+    private int next;
+
+    private Path csv;
+    private Path exportTarget;
+
+    // The same rows in primitive columns, for the aggregate comparison
+    private ColumnarEnrollmentStore columnar;
+    private final EnrollmentQuery everything = EnrollmentQuery.builder().build();
+
+    // A tenth of the generated enrollments, held back from the initial load for enrollStudent
+    private List<Enrollment> pending;
+    private int pendingStart;
+    private int enrolledFrom;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticData data = SyntheticData.generate(size, SEED);
+        List<Enrollment> all = data.getEnrollments();
+        int holdOut = Math.max(ENROLL_BATCH, all.size() / 10);
+        pending = all.subList(all.size() - holdOut, all.size());
+
+        // Same list types AppConfig hands to the CLI
+        List<Student> students = new CopyOnWriteArrayList<>();
+        List<Instructor> instructors = new CopyOnWriteArrayList<>();
+        List<Course> courses = new CopyOnWriteArrayList<>();
+        service = new CCRMService(students, instructors, courses, new AppendOnlyList<>(), Settings.defaults());
+        service.loadStudents(data.getStudents());
+        service.loadInstructors(data.getInstructors());
+        service.loadCourses(data.getCourses());
+        service.loadEnrollments(all.subList(0, all.size() - holdOut));
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < ids.length; i++) ids[i] = 1 + random.nextInt(data.getStudents().size());
+        for (int i = 0; i < prefixes.length; i++) {
+            String code = data.getCourses().get(random.nextInt(data.getCourses().size())).getCode();
+            prefixes[i] = code.substring(0, 3 + random.nextInt(3));
+        }
+
+        csv = Files.createTempFile("ccrm-bench-", ".csv");
+        exportTarget = Files.createTempFile("ccrm-bench-export-", ".csv");
+        ImportExportService.exportEnrollments(service.getEnrollments(), csv);
+
+        columnar = new ColumnarEnrollmentStore(service::getStudent);
+        service.getEnrollments().forEach(columnar::add);
+
+        // enrollStudent reports to stdout; keep that out of the measurement
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(exportTarget);
+    }
+
+    @Setup(Level.Iteration)
+    public void markEnrollments() {
+        enrolledFrom = service.getEnrollments().size();
+    }
+
+    // Drops what enrollStudent added, so the next batch can be enrolled again
+    @TearDown(Level.Iteration)
+    public void dropEnrolled() {
+        for (int id = service.getEnrollments().size(); id > enrolledFrom; id--) service.dropEnrollment(id);
+    }
+
+    private int nextId() {
+        return ids[next++ & (ids.length - 1)];
+    }
+
+    @Benchmark
+    public int getStudent() {
+        return service.getStudent(nextId()).getId();
+    }
+
+    @Benchmark
+    public double computeGPA() {
+        return service.computeGPA(service.getStudent(nextId()));
+    }
+
+    @Benchmark
+    public int getStudentTranscript() {
+        return service.getStudentTranscript(nextId()).size();
+    }
+
+    @Benchmark
+    public int searchCoursesByCode() {
+        return service.searchCoursesByCode(prefixes[next++ & (prefixes.length - 1)]).size();
+    }
+
+    /**
+     * Enrolls the next ENROLL_BATCH held-back enrollments; one iteration is one batch, so the
+     * iteration teardown can drop them again. Reported per enrollment.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(ENROLL_BATCH)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 50)
+    public int enrollStudent() throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        int start = pendingStart;
+        pendingStart = (pendingStart + ENROLL_BATCH) % (pending.size() - ENROLL_BATCH + 1);
+        for (int k = start; k < start + ENROLL_BATCH; k++) {
+            Enrollment e = pending.get(k);
+            service.enrollStudent(e.getStudent().getId(), e.getCourse().getId(), e.getSemester());
+        }
+        return ENROLL_BATCH;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportEnrollmentsCsv() throws IOException {
+        ImportExportService.exportEnrollments(service.getEnrollments(), exportTarget);
+        return Files.size(exportTarget);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int importEnrollmentsCsv() throws IOException {
+        return ImportExportService.importEnrollments(csv, service.getRegistry().studentIdIndex(),
+                service.getRegistry().courseCodeIndex()).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int aggregateCourseObjects() {
+        return service.aggregate(everything, GroupBy.COURSE).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int aggregateCourseColumnar() {
+        return columnar.aggregate(GroupBy.COURSE).size();
+    }
+}
@@ -0,0 +1,313 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.Settings;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.CourseFullException;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.service.CCRMService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.util.AppendOnlyList;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency stress test for CCRMService: many threads enroll, enroll in batches, drop,
+ * grade and change course capacities on a small, crowded dataset (so threads keep meeting
+ * on the same students and courses), while reader threads check the credit limit.
+ * When the writers stop, the service is checked against the enrollments themselves:
+ *
+ *   - no student is over the credit limit in any semester, and the running credit and GPA
+ *     totals match the student's live enrollments;
+ *   - no (student, course, semester) is enrolled twice, and each transcript holds exactly
+ *     the student's live enrollments;
+ *   - each roster holds exactly the course's live enrollments, the free seats match, and
+ *     nobody is waitlisted while a seat is free.
+ *
+ * Exits with status 1 if any check fails.
+ *
+ * Options (all optional):
+ *   --threads=8       writer threads (plus two readers)
+ *   --seconds=10      how long the writers run
+ *   --students=200
+ *   --courses=30      every third course has a seat limit
+ *   --seed=42
+ */
+public final class StressTest {
+
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    private final int threads;
+    private final int seconds;
+    private final int studentCount;
+    private final int courseCount;
+    private final long seed;
+
+    private final CCRMService service;
+    private final int maxCredits;
+    private final Map<Course, Integer> baseCapacity = new HashMap<>();
+
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong enrolled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong waitlisted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private StressTest(Map<String, String> options) {
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        this.seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        this.studentCount = Integer.parseInt(options.getOrDefault("students", "200"));
+        this.courseCount = Integer.parseInt(options.getOrDefault("courses", "30"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        Settings settings = Settings.defaults();
+        this.maxCredits = settings.getMaxCreditsPerSemester();
+        this.service = new CCRMService(new CopyOnWriteArrayList<>(), new CopyOnWriteArrayList<>(),
+                new CopyOnWriteArrayList<>(), new AppendOnlyList<>(), settings);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 1; i <= studentCount; i++) students.add(new Student(i, "Student " + i, "student" + i + "@mail.com"));
+        service.loadStudents(students);
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 1; i <= courseCount; i++) {
+            Course.Builder b = new Course.Builder(String.format("ST%03d", i), "Stress " + i).credits(1 + i % 5);
+            if (i % 3 == 0) b.capacity(5 + i % 7);
+            courses.add(b.build());
+        }
+        service.loadCourses(courses);
+        for (Course c : service.getCourses()) baseCapacity.put(c, c.getCapacity());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        System.exit(new StressTest(options).run() ? 0 : 1);
+    }
+
+    private boolean run() throws InterruptedException {
+        PrintStream console = System.out;
+        System.out.printf(Locale.ROOT, "Stress test: %d writer threads for %d s, %d students, %d courses, credit limit %d%n",
+                threads, seconds, studentCount, courseCount, maxCredits);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(threads + 2);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // enrollStudent prints on success
+        try {
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(seed + t);
+                start("stress-writer-" + t, done, () -> {
+                    while (!stop.get()) write(random);
+                });
+            }
+            for (int t = 0; t < 2; t++) {
+                SplittableRandom random = new SplittableRandom(seed - t - 1);
+                start("stress-reader-" + t, done, () -> {
+                    while (!stop.get()) read(random);
+                });
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            stop.set(true);
+            done.await();
+        } finally {
+            System.setOut(console);
+        }
+
+        checkFinalState();
+
+        System.out.printf(Locale.ROOT, "%,d operations: %,d enrolled, %,d dropped, %,d waitlisted, %,d rejected%n",
+                operations.get(), enrolled.get(), dropped.get(), waitlisted.get(), rejected.get());
+        if (failures.isEmpty()) {
+            System.out.println("All invariants hold.");
+            return true;
+        }
+        System.out.println(failures.size() + " invariant violation(s):");
+        failures.stream().limit(20).forEach(f -> System.out.println("  " + f));
+        return false;
+    }
+
+    private void start(String name, CountDownLatch done, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (RuntimeException e) {
+                failures.add(Thread.currentThread().getName() + " failed: " + e);
+            } finally {
+                done.countDown();
+            }
+        }, name);
+        thread.start();
+    }
+
+    // ---------------- Workload ----------------
+
+    private void write(SplittableRandom random) {
+        operations.incrementAndGet();
+        int op = random.nextInt(100);
+        if (op < 45) {
+            enroll(random);
+        } else if (op < 60) {
+            batch(random);
+        } else if (op < 80) {
+            drop(random);
+        } else if (op < 97) {
+            int count = service.getEnrollments().size();
+            if (count > 0) service.recordGrade(1 + random.nextInt(count), GRADES[random.nextInt(GRADES.length)]);
+        } else {
+            // Moves a seat limit up or down; freed seats go to the waitlist
+            Course c = randomCourse(random);
+            int base = baseCapacity.get(c);
+            if (base != Course.UNLIMITED) service.setCourseCapacity(c, base + random.nextInt(-2, 3));
+        }
+    }
+
+    private void enroll(SplittableRandom random) {
+        try {
+            service.enrollStudent(randomStudentId(random), randomCourse(random).getId(), randomSemester(random));
+            enrolled.incrementAndGet();
+        } catch (CourseFullException e) {
+            waitlisted.incrementAndGet();
+        } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+            rejected.incrementAndGet();
+        }
+    }
+
+    private void batch(SplittableRandom random) {
+        // A few requests per student, so one batch often meets its own credit limit
+        List<EnrollmentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            int sId = randomStudentId(random);
+            Semester sem = randomSemester(random);
+            for (int k = 0; k < 3; k++) requests.add(new EnrollmentRequest(sId, randomCourse(random).getCode(), sem));
+        }
+        var result = service.enrollBatch(requests, random.nextBoolean());
+        enrolled.addAndGet(result.getAccepted().size());
+        rejected.addAndGet(result.getRejected().size());
+    }
+
+    private void drop(SplittableRandom random) {
+        int count = service.getEnrollments().size();
+        if (count > 0 && service.dropEnrollment(1 + random.nextInt(count))) dropped.incrementAndGet();
+    }
+
+    // Reads run without locks; the credit limit must hold in every state they can see
+    private void read(SplittableRandom random) {
+        Student s = service.getStudent(randomStudentId(random));
+        for (Semester sem : SEMESTERS) {
+            int credits = s.getRecord().getEnrolledCredits(sem);
+            if (credits > maxCredits) {
+                failures.add(String.format("%s seen at %d credits in %s (limit %d)", s.getFullName(), credits, sem, maxCredits));
+            }
+        }
+        service.getStudentTranscript(s.getId());
+        service.computeGPA(s);
+    }
+
+    private int randomStudentId(SplittableRandom random) {
+        // Half the traffic goes to a tenth of the students, so they keep hitting the limit
+        return random.nextBoolean() ? 1 + random.nextInt(Math.max(1, studentCount / 10)) : 1 + random.nextInt(studentCount);
+    }
+
+    private Course randomCourse(SplittableRandom random) {
+        return service.getCourse(1 + random.nextInt(courseCount));
+    }
+
+    private static Semester randomSemester(SplittableRandom random) {
+        return SEMESTERS[random.nextInt(SEMESTERS.length)];
+    }
+
+    // ---------------- Final checks (writers stopped) ----------------
+
+    private void checkFinalState() {
+        List<Enrollment> live = service.listEnrollments();
+
+        Map<Student, int[]> credits = new HashMap<>();
+        Map<Student, long[]> grades = new HashMap<>(); // graded credits, grade points
+        Map<Student, Integer> perStudent = new HashMap<>();
+        Map<String, Integer> perRoster = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (Enrollment e : live) {
+            Student s = e.getStudent();
+            int c = e.getCourse().getCredits();
+            credits.computeIfAbsent(s, k -> new int[SEMESTERS.length])[e.getSemester().ordinal()] += c;
+            if (e.getGrade() != null) {
+                long[] g = grades.computeIfAbsent(s, k -> new long[2]);
+                g[0] += c;
+                g[1] += (long) e.getGrade().getPointValue() * c;
+            }
+            perStudent.merge(s, 1, Integer::sum);
+            String key = e.getCourse().getCode() + " " + e.getSemester();
+            perRoster.merge(key, 1, Integer::sum);
+            if (!seen.add(s.getId() + " " + key)) failures.add(s.getFullName() + " is enrolled twice in " + key);
+        }
+
+        for (Student s : service.listStudents()) {
+            int[] expected = credits.getOrDefault(s, new int[SEMESTERS.length]);
+            for (Semester sem : SEMESTERS) {
+                int actual = s.getRecord().getEnrolledCredits(sem);
+                if (expected[sem.ordinal()] > maxCredits) {
+                    failures.add(String.format("%s has %d credits in %s (limit %d)", s.getFullName(), expected[sem.ordinal()], sem, maxCredits));
+                }
+                if (actual != expected[sem.ordinal()]) {
+                    failures.add(String.format("%s: running credits %d in %s, enrollments add up to %d", s.getFullName(), actual, sem, expected[sem.ordinal()]));
+                }
+            }
+            long[] g = grades.getOrDefault(s, new long[2]);
+            double gpa = g[0] == 0 ? 0.0 : (double) g[1] / g[0];
+            if (Math.abs(service.computeGPA(s) - gpa) > 1e-9) {
+                failures.add(String.format("%s: GPA %.4f, enrollments give %.4f", s.getFullName(), service.computeGPA(s), gpa));
+            }
+            int transcript = service.getStudentTranscript(s.getId()).size();
+            if (transcript != perStudent.getOrDefault(s, 0)) {
+                failures.add(String.format("%s: transcript has %d enrollments, expected %d", s.getFullName(), transcript, perStudent.getOrDefault(s, 0)));
+            }
+        }
+
+        for (Course c : service.getCourses()) {
+            for (Semester sem : SEMESTERS) {
+                String key = c.getCode() + " " + sem;
+                int count = perRoster.getOrDefault(key, 0);
+                int roster = service.roster(c, sem).size();
+                if (roster != count) failures.add(String.format("%s: roster has %d, expected %d", key, roster, count));
+                if (!c.hasCapacityLimit()) continue;
+
+                int free = service.seatsRemaining(c, sem);
+                int expectedFree = Math.max(0, c.getCapacity() - count);
+                if (free != expectedFree) {
+                    failures.add(String.format("%s: %d seats free, expected %d (capacity %d, %d enrolled)", key, free, expectedFree, c.getCapacity(), count));
+                }
+                int waiting = service.waitlist(c, sem).size();
+                if (waiting > 0 && free > 0) {
+                    failures.add(String.format("%s: %d waitlisted while %d seats are free", key, waiting, free));
+                }
+            }
+        }
+    }
+}
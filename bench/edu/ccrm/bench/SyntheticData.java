@@ -0,0 +1,141 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded, in-memory dataset with realistic shapes for the benchmarks:
+ * course popularity follows a Zipf distribution (a few courses take most enrollments),
+ * per-student load is skewed (most students take a few courses, some sit near the credit
+ * cap), and grades follow a bell-ish distribution with a small ungraded share.
+ * The same seed and size always give the same data.
+ */
+public final class SyntheticData {
+
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+    // Weights for S, A, B, C, D, E, F; the remainder stays ungraded
+    private static final double[] GRADE_WEIGHTS = { 0.08, 0.20, 0.27, 0.20, 0.10, 0.05, 0.05 };
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int MAX_CREDITS = 21;
+
+    private final List<Student> students;
+    private final List<Instructor> instructors;
+    private final List<Course> courses;
+    private final List<Enrollment> enrollments;
+
+    private SyntheticData(List<Student> students, List<Instructor> instructors,
+                          List<Course> courses, List<Enrollment> enrollments) {
+        this.students = students;
+        this.instructors = instructors;
+        this.courses = courses;
+        this.enrollments = enrollments;
+    }
+
+    public List<Student> getStudents() { return students; }
+    public List<Instructor> getInstructors() { return instructors; }
+    public List<Course> getCourses() { return courses; }
+    public List<Enrollment> getEnrollments() { return enrollments; }
+
+    /**
+     * Generates about 'enrollmentCount' enrollments (fewer only if every student is at the cap).
+     */
+    public static SyntheticData generate(int enrollmentCount, long seed) {
+        Random random = new Random(seed);
+
+        // Roughly five enrollments per student, and enough courses for the popular ones to stand out
+        int studentCount = Math.max(10, enrollmentCount / 5);
+        int courseCount = Math.max(20, Math.min(2000, enrollmentCount / 500));
+        int instructorCount = Math.max(2, courseCount / 4);
+
+        List<Instructor> instructors = new ArrayList<>(instructorCount);
+        for (int i = 1; i <= instructorCount; i++) {
+            instructors.add(new Instructor(i, "Instructor " + i, "instructor" + i + "@mail.com", "DEPT" + (i % 12)));
+        }
+
+        List<Course> courses = new ArrayList<>(courseCount);
+        for (int i = 1; i <= courseCount; i++) {
+            int credits = random.nextInt(10) < 7 ? 3 : (random.nextBoolean() ? 2 : 4);
+            courses.add(new Course.Builder(String.format("C%05d", i), "Course " + i)
+                    .credits(credits)
+                    .department("DEPT" + (i % 12))
+                    .instructor(instructors.get(random.nextInt(instructorCount)))
+                    .build());
+        }
+
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 1; i <= studentCount; i++) {
+            students.add(new Student(i, "Student " + i, "student" + i + "@mail.com"));
+        }
+
+        double[] courseCdf = zipfCdf(courseCount);
+        double[] gradeCdf = new double[GRADE_WEIGHTS.length];
+        double acc = 0;
+        for (int g = 0; g < GRADE_WEIGHTS.length; g++) gradeCdf[g] = acc += GRADE_WEIGHTS[g];
+
+        LocalDate baseDate = LocalDate.of(2024, 1, 8);
+        List<Enrollment> enrollments = new ArrayList<>(enrollmentCount);
+        int[] credits = new int[SEMESTERS.length];
+        Set<Integer> taken = new HashSet<>();
+
+        // Visit students in a shuffled order so load isn't correlated with id
+        int[] order = new int[studentCount];
+        for (int i = 0; i < studentCount; i++) order[i] = i;
+        for (int i = studentCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i]; order[i] = order[j]; order[j] = t;
+        }
+
+        // The mean load (~5.7) exceeds the five per student assumed above, so one pass normally
+        // reaches the target; the students left over simply have no enrollments
+        int remaining = enrollmentCount;
+        for (int k = 0; k < studentCount && remaining > 0; k++) {
+            Student s = students.get(order[k]);
+            // Geometric-ish load; one student in ten is a heavy-load student near the cap
+            int load = random.nextInt(10) == 0 ? 14 + random.nextInt(6) : 1 + (int) (-Math.log(1 - random.nextDouble()) * 4);
+            load = Math.min(load, remaining);
+
+            Arrays.fill(credits, 0);
+            taken.clear();
+            int added = 0;
+            for (int attempt = 0; added < load && attempt < load * 4; attempt++) {
+                int c = Math.min(sample(courseCdf, random), courseCount - 1);
+                Semester sem = SEMESTERS[random.nextInt(SEMESTERS.length)];
+                Course course = courses.get(c);
+                if (credits[sem.ordinal()] + course.getCredits() > MAX_CREDITS) continue;
+                if (!taken.add(c * SEMESTERS.length + sem.ordinal())) continue;
+
+                credits[sem.ordinal()] += course.getCredits();
+                Enrollment e = new Enrollment(s, course, sem, baseDate.plusDays(random.nextInt(365)));
+                int g = sample(gradeCdf, random);
+                if (g < GRADES.length) e.setGrade(GRADES[g]);
+                enrollments.add(e);
+                added++;
+            }
+            remaining -= added;
+        }
+        return new SyntheticData(students, instructors, courses, enrollments);
+    }
+
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) cdf[i] = sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+
+    // Index of the first CDF entry >= u; returns cdf.length when u falls past the last entry
+    private static int sample(double[] cdf, Random random) {
+        double u = random.nextDouble();
+        int i = Arrays.binarySearch(cdf, u);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,359 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.io.CsvWriter;
+import edu.ccrm.io.ImportExportService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Writes large, realistic students.csv, courses.csv and enrollments.csv files for load tests.
+ *
+ * Students are generated in fixed-size shards, each with its own random stream derived from the
+ * seed, on a pool of worker threads; every shard is streamed to its own part file and the parts
+ * are concatenated in shard order at the end. The output therefore depends only on the options,
+ * never on the number of threads, and memory use stays flat whatever the row count.
+ *
+ * Run: java -cp bin edu.ccrm.cli.DataGenerator --students=1000000 --out=generated
+ */
+public class DataGenerator {
+
+    private static final int SHARD_SIZE = 50_000; // students per shard; part of the output's identity
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    private static final String[] FIRST_NAMES = {
+            "John", "Jane", "Michael", "Emily", "David", "Sarah", "Arjun", "Priya", "Wei", "Mei",
+            "Carlos", "Sofia", "Ahmed", "Fatima", "Liam", "Olivia", "Noah", "Ava", "Ravi", "Ananya",
+            "Kenji", "Yuki", "Lucas", "Chloe", "Omar", "Layla", "Ivan", "Elena", "Kwame", "Amara" };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Brown", "Johnson", "Garcia", "Miller", "Davis", "Sharma", "Mishra", "Patel", "Singh",
+            "Chen", "Wang", "Kim", "Tanaka", "Silva", "Rossi", "Muller", "Novak", "Khan", "Hassan",
+            "Okafor", "Mensah", "Lopez", "Martin", "Ivanov", "Petrov", "Nguyen", "Tran", "Cohen", "Walker" };
+    private static final String[] SUBJECTS = {
+            "Programming", "Data Structures", "Algorithms", "Databases", "Networks", "Operating Systems",
+            "Calculus", "Linear Algebra", "Statistics", "Physics", "Chemistry", "Biology", "Economics",
+            "Psychology", "History", "Literature", "Philosophy", "Design", "Electronics", "Mechanics" };
+    private static final String[] LEVELS = { "Introduction to", "Foundations of", "Applied", "Advanced", "Topics in" };
+    private static final String[] DEPARTMENTS = { "CS", "MA", "PH", "CH", "BI", "EC", "PS", "HI", "EN", "ME" };
+
+    /**
+     * Generation options; see usage() for their meaning and defaults.
+     */
+    static final class Options {
+        Path out = Paths.get("generated-data");
+        long students = 100_000;
+        int courses = 500;
+        long seed = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double courseSkew = 1.1;        // Zipf exponent of course popularity; 0 = uniform
+        double meanLoad = 5;            // mean courses per ordinary student, across all semesters
+        double heavyLoadShare = 0.1;    // share of students who fill one semester up to the cap
+        int maxCredits = 21;
+        // Weights for S, A, B, C, D, E, F and "not graded yet"
+        double[] gradeWeights = { 8, 20, 27, 20, 10, 5, 5, 5 };
+        boolean overwrite;
+    }
+
+    public static void main(String[] args) {
+        Options o;
+        try {
+            o = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(usage());
+            System.exit(2);
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long[] counts = generate(o);
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "Wrote %,d students, %,d courses and %,d enrollments to %s in %.1f s%n",
+                    counts[0], o.courses, counts[1], o.out.toAbsolutePath(), secs);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Generation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static String usage() {
+        return String.join("\n",
+                "Usage: java -cp bin edu.ccrm.cli.DataGenerator [--option=value ...]",
+                "  --out=generated-data   output folder (students.csv, courses.csv, enrollments.csv)",
+                "  --students=100000      number of students",
+                "  --courses=500          number of courses (codes CS00001, MA00002, ...)",
+                "  --seed=42              same seed and options give byte-identical files",
+                "  --threads=<cpus>       worker threads (doesn't change the output)",
+                "  --courseSkew=1.1       Zipf exponent of course popularity, 0 = uniform",
+                "  --meanLoad=5           mean courses per ordinary student",
+                "  --heavyLoadShare=0.1   share of students who fill a semester up to the credit cap",
+                "  --maxCredits=21        credit cap per student and semester",
+                "  --grades=8,20,27,20,10,5,5,5  weights of S,A,B,C,D,E,F and ungraded",
+                "  --overwrite            replace existing files in the output folder");
+    }
+
+    static Options parse(String[] args) {
+        Options o = new Options();
+        for (String a : args) {
+            if (a.equals("--overwrite")) {
+                o.overwrite = true;
+                continue;
+            }
+            int eq = a.indexOf('=');
+            if (!a.startsWith("--") || eq < 0) throw new IllegalArgumentException("Unrecognised argument: " + a);
+            String key = a.substring(2, eq), value = a.substring(eq + 1).trim();
+            try {
+                switch (key) {
+                    case "out" -> o.out = Paths.get(value);
+                    case "students" -> o.students = Long.parseLong(value.replace("_", ""));
+                    case "courses" -> o.courses = Integer.parseInt(value.replace("_", ""));
+                    case "seed" -> o.seed = Long.parseLong(value);
+                    case "threads" -> o.threads = Integer.parseInt(value);
+                    case "courseSkew" -> o.courseSkew = Double.parseDouble(value);
+                    case "meanLoad" -> o.meanLoad = Double.parseDouble(value);
+                    case "heavyLoadShare" -> o.heavyLoadShare = Double.parseDouble(value);
+                    case "maxCredits" -> o.maxCredits = Integer.parseInt(value);
+                    case "grades" -> o.gradeWeights = Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+                    default -> throw new IllegalArgumentException("Unknown option --" + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + key + ": " + value);
+            }
+        }
+        if (o.students < 1 || o.courses < 1 || o.threads < 1) {
+            throw new IllegalArgumentException("--students, --courses and --threads must be at least 1");
+        }
+        if (o.students > Integer.MAX_VALUE) throw new IllegalArgumentException("--students must fit an int student id");
+        if (o.courses > 99_999) throw new IllegalArgumentException("--courses must be at most 99999");
+        if (o.courseSkew < 0 || o.meanLoad < 0 || o.heavyLoadShare < 0 || o.heavyLoadShare > 1) {
+            throw new IllegalArgumentException("--courseSkew and --meanLoad must not be negative, --heavyLoadShare must be within 0..1");
+        }
+        if (o.maxCredits < 1) throw new IllegalArgumentException("--maxCredits must be at least 1");
+        if (o.gradeWeights.length != GRADES.length + 1 || Arrays.stream(o.gradeWeights).anyMatch(w -> w < 0)
+                || Arrays.stream(o.gradeWeights).sum() <= 0) {
+            throw new IllegalArgumentException("--grades needs " + (GRADES.length + 1) + " non-negative weights");
+        }
+        return o;
+    }
+
+    /**
+     * Generates all three files.
+     * @return { students written, enrollments written }
+     */
+    static long[] generate(Options o) throws IOException {
+        Files.createDirectories(o.out);
+        Path studentsFile = o.out.resolve("students.csv");
+        Path coursesFile = o.out.resolve("courses.csv");
+        Path enrollmentsFile = o.out.resolve("enrollments.csv");
+        if (!o.overwrite) {
+            for (Path p : List.of(studentsFile, coursesFile, enrollmentsFile)) {
+                if (Files.exists(p)) throw new IOException(p + " already exists (use --overwrite)");
+            }
+        }
+
+        String[] codes = new String[o.courses];
+        int[] credits = new int[o.courses];
+        writeCourses(o, coursesFile, codes, credits);
+
+        double[] courseCdf = cdf(o.courses, i -> o.courseSkew == 0 ? 1 : 1 / Math.pow(i + 1, o.courseSkew));
+        double[] gradeCdf = cdf(o.gradeWeights.length, i -> o.gradeWeights[i]);
+
+        Path parts = Files.createTempDirectory(o.out, ".parts-");
+        int shards = (int) ((o.students + SHARD_SIZE - 1) / SHARD_SIZE);
+        AtomicLong studentsDone = new AtomicLong();
+        AtomicLong enrollmentsDone = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(o.threads, shards));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < shards; s++) {
+                int shard = s;
+                futures.add(pool.submit(() -> {
+                    writeShard(o, shard, parts, codes, credits, courseCdf, gradeCdf, studentsDone, enrollmentsDone);
+                    return null;
+                }));
+            }
+            long lastReport = System.nanoTime();
+            for (Future<?> f : futures) {
+                await(f);
+                if (System.nanoTime() - lastReport > 2_000_000_000L) {
+                    System.out.printf(Locale.ROOT, "  %,d / %,d students, %,d enrollments%n",
+                            studentsDone.get(), o.students, enrollmentsDone.get());
+                    lastReport = System.nanoTime();
+                }
+            }
+
+            concatenate(parts, "students", null, shards, studentsFile);
+            // The header marks the course column as ids
+            concatenate(parts, "enrollments", ImportExportService.ENROLLMENTS_HEADER, shards, enrollmentsFile);
+        } finally {
+            pool.shutdownNow();
+            deleteTree(parts);
+        }
+        return new long[] { studentsDone.get(), enrollmentsDone.get() };
+    }
+
+    private static void writeCourses(Options o, Path file, String[] codes, int[] credits) throws IOException {
+        SplittableRandom random = new SplittableRandom(o.seed);
+        try (CsvWriter out = new CsvWriter(file, false)) {
+            for (int i = 0; i < o.courses; i++) {
+                String dept = DEPARTMENTS[i % DEPARTMENTS.length];
+                codes[i] = String.format("%s%05d", dept, i + 1);
+                // Mostly 3-credit courses, with some 2s, 4s and the odd 1 or 5
+                int r = random.nextInt(100);
+                credits[i] = r < 65 ? 3 : r < 80 ? 4 : r < 92 ? 2 : r < 96 ? 1 : 5;
+                String title = LEVELS[random.nextInt(LEVELS.length)] + " " + SUBJECTS[random.nextInt(SUBJECTS.length)];
+                // No seat limit; course i gets id i + 1, which the enrollment rows refer to
+                out.field(codes[i]).field(title).field(credits[i]).field((String) null).field(i + 1).endRow();
+            }
+            out.commit();
+        }
+    }
+
+    // Writes the students of one shard and their enrollments to two part files
+    private static void writeShard(Options o, int shard, Path parts, String[] codes, int[] credits,
+                                   double[] courseCdf, double[] gradeCdf,
+                                   AtomicLong studentsDone, AtomicLong enrollmentsDone) throws IOException {
+        // The shard's stream depends only on the seed and the shard number
+        SplittableRandom random = new SplittableRandom(o.seed * 0x9E3779B97F4A7C15L + shard + 1);
+        long firstId = (long) shard * SHARD_SIZE + 1;
+        long lastId = Math.min(o.students, firstId + SHARD_SIZE - 1);
+
+        int[] semesterCredits = new int[SEMESTERS.length];
+        boolean[] taken = new boolean[codes.length * SEMESTERS.length];
+        int[] takenList = new int[64];
+        long enrollments = 0;
+
+        try (CsvWriter students = new CsvWriter(part(parts, "students", shard), false);
+             CsvWriter rows = new CsvWriter(part(parts, "enrollments", shard), false)) {
+            for (long id = firstId; id <= lastId; id++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String sid = Long.toString(id);
+                students.field(sid).field(firstName + " " + lastName)
+                        .field((firstName + "." + lastName + id + "@mail.com").toLowerCase(Locale.ROOT)).endRow();
+
+                Arrays.fill(semesterCredits, 0);
+                int takenCount = 0;
+
+                // Heavy-load students fill one semester close to the cap; the others take a
+                // geometric-like number of courses spread over random semesters
+                boolean heavy = random.nextDouble() < o.heavyLoadShare;
+                int heavySemester = heavy ? random.nextInt(SEMESTERS.length) : -1;
+                int target = heavy ? Integer.MAX_VALUE
+                        : (int) Math.round(-Math.log(1 - random.nextDouble()) * o.meanLoad);
+                int attempts = heavy ? 40 : target * 4;
+
+                for (int a = 0; a < attempts && takenCount < Math.min(target, takenList.length); a++) {
+                    int c = Math.min(sample(courseCdf, random), codes.length - 1);
+                    int sem = heavy ? heavySemester : random.nextInt(SEMESTERS.length);
+                    if (semesterCredits[sem] + credits[c] > o.maxCredits) {
+                        if (heavy && semesterCredits[sem] >= o.maxCredits - 1) break; // close enough to the cap
+                        continue;
+                    }
+                    int key = c * SEMESTERS.length + sem;
+                    if (taken[key]) continue;
+
+                    taken[key] = true;
+                    takenList[takenCount++] = key;
+                    semesterCredits[sem] += credits[c];
+
+                    int g = sample(gradeCdf, random);
+                    rows.field(sid).field(c + 1).field(SEMESTERS[sem]);
+                    if (g < GRADES.length) rows.field(GRADES[g]);
+                    rows.endRow();
+                    enrollments++;
+                }
+                for (int t = 0; t < takenCount; t++) taken[takenList[t]] = false;
+            }
+            students.commit();
+            rows.commit();
+        }
+        studentsDone.addAndGet(lastId - firstId + 1);
+        enrollmentsDone.addAndGet(enrollments);
+    }
+
+    // Joins the header line (if any) and the shard parts, in order, into the target
+    // (written next to it, then moved into place)
+    private static void concatenate(Path parts, String name, String header, int shards, Path target) throws IOException {
+        Path temp = parts.resolve(name + ".csv");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            if (header != null) {
+                ByteBuffer line = ByteBuffer.wrap((header + "\n").getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) out.write(line);
+            }
+            for (int s = 0; s < shards; s++) {
+                try (FileChannel in = FileChannel.open(part(parts, name, s), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long pos = 0; pos < size; ) pos += in.transferTo(pos, size - pos, out);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path part(Path parts, String name, int shard) {
+        return parts.resolve(String.format("%s-%05d.part", name, shard));
+    }
+
+    private interface Weight {
+        double of(int i);
+    }
+
+    private static double[] cdf(int n, Weight weight) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) cdf[i] = sum += weight.of(i);
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+
+    // Index of the first CDF entry >= u (cdf.length only through rounding, so callers clamp)
+    private static int sample(double[] cdf, SplittableRandom random) {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static void await(Future<?> f) throws IOException {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
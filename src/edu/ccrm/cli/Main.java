@@ -2,23 +2,50 @@ package edu.ccrm.cli;
 
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.exceptions.CourseFullException;
 import edu.ccrm.exceptions.DuplicateEnrollmentException;
 import edu.ccrm.exceptions.MaxCreditLimitExceededException;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.Journal;
+import edu.ccrm.io.ParallelEnrollmentImporter;
+import edu.ccrm.io.SnapshotService;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.BatchResult;
 import edu.ccrm.service.CCRMService;
+import edu.ccrm.service.EnrollmentQuery;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentStats;
+import edu.ccrm.service.GroupBy;
+import edu.ccrm.service.Page;
+import edu.ccrm.service.StateView;
+import edu.ccrm.util.BackupScanner;
 import edu.ccrm.util.BackupUtil;
 import edu.ccrm.util.InputHelper;
+import edu.ccrm.util.TaskScheduler;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class Main {
 
     static Scanner sc = new Scanner(System.in);
     static CCRMService service;
     static AppConfig config; // Instance of the Singleton
+    static Journal journal;  // Records every change so a crash loses nothing
+    static BackupScanner backupScanner; // Kept across menu calls so unchanged backups aren't rescanned
+    static TaskScheduler scheduler;     // Autosave and backups run here, off the CLI thread
+    static final AtomicBoolean verifyNextBackup = new AtomicBoolean();
 
     public static void main(String[] args) {
 
@@ -30,7 +57,8 @@ public class Main {
                 config.getStudents(), 
                 config.getInstructors(), 
                 config.getCourses(), 
-                config.getEnrollments()
+                config.getEnrollments(),
+                config.getSettings()
         );
 
         // Ensure data folder exists (optional, as AppConfig constructor handles it)
@@ -41,12 +69,15 @@ public class Main {
         }
 
         importDataOnStart();
+        openJournal();
+        startScheduler();
+        watchConfig();
 
         boolean running = true;
         while (running) {
             showMenu();
-            // Expanded menu range (0-15)
-            int choice = InputHelper.readInt(sc, "Enter choice: ", 0, 15);
+            // Expanded menu range (0-24)
+            int choice = InputHelper.readInt(sc, "Enter choice: ", 0, 24);
 
             switch (choice) {
                 case 1 -> addStudent();
@@ -62,15 +93,27 @@ public class Main {
                 case 11 -> exportDataManual(); // Export to custom path
                 case 12 -> assignInstructor();
                 case 13 -> showTranscript();
-                case 14 -> exportDataOnExit(false); // Quick save to default files
-                case 15 -> runBackupAndCheckSize(); // Mandatory NIO.2 Recursion Demo
+                case 14 -> exportDataOnExit(false); // Save (journal sync, full rewrite only when it has grown)
+                case 15 -> requestBackup(); // Runs in the background (Mandatory NIO.2 Recursion Demo)
+                case 16 -> showGpaReports();
+                case 17 -> bulkEnroll();
+                case 18 -> restoreBackup();
+                case 19 -> showBackgroundStatus();
+                case 20 -> showMetrics();
+                case 21 -> search();
+                case 22 -> queryEnrollments();
+                case 23 -> showRoster();
+                case 24 -> dropEnrollment();
                 case 0 -> {
                     running = false;
+                    stopScheduler(); // Let a running save/backup finish first
                     exportDataOnExit(true); // Auto-save before exit
+                    closeJournal();
                     System.out.println("\nExiting CCRM... Goodbye!");
                 }
                 default -> System.out.println("Invalid choice!");
             }
+            syncJournal(); // Each action is durable before the next prompt
         }
     }
 
@@ -91,11 +134,59 @@ public class Main {
         System.out.println("11. Export Data to CSV (Manual Path)");
         System.out.println("12. Assign Instructor to Course");
         System.out.println("13. Show Student Transcript (GPA)");
-        System.out.println("14. Save Data to Default Files"); 
-        System.out.println("15. Backup Data Folder & Show Recursive Size (NIO.2/Streams)");
+        System.out.println("14. Save Data (Journal; Full Rewrite When Large)"); 
+        System.out.println("15. Backup Data Folder in Background (Incremental, NIO.2/Streams)");
+        System.out.println("16. Reports: Top Students by GPA / Dean's List");
+        System.out.println("17. Bulk Enroll from CSV (studentId,courseCode,semester)");
+        System.out.println("18. Restore a Backup to a Folder");
+        System.out.println("19. Background Autosave/Backup Status");
+        System.out.println("20. Operation Metrics (Latency Percentiles, Errors)");
+        System.out.println("21. Search Courses / Students / Instructors");
+        System.out.println("22. Query Enrollments (Filters, Group-By, Explain Plan)");
+        System.out.println("23. Course Roster, Seats & Waitlist (Set Capacity)");
+        System.out.println("24. Drop Enrollment (Withdraw Student from Course)");
         System.out.println("0. Exit (Auto-save and Exit)");
     }
 
+    // -------------------- Paged listings --------------------
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Prints a listing page by page, asking before each further page, so even huge lists
+     * come up immediately. 'show' gets each item with its 0-based position in the full list.
+     */
+    private static <T> void browse(Function<String, Page<T>> fetch, BiConsumer<Integer, T> show, String emptyMessage) {
+        String cursor = null;
+        boolean any = false;
+        while (true) {
+            Page<T> page;
+            try {
+                page = fetch.apply(cursor);
+            } catch (IllegalArgumentException e) { // the list was replaced meanwhile
+                System.out.println("🛑 " + e.getMessage());
+                return;
+            }
+            for (int i = 0; i < page.getItems().size(); i++) show.accept(page.getPosition(i), page.getItems().get(i));
+            any |= !page.isEmpty();
+            if (!page.hasNext()) break;
+            System.out.printf("-- %d of %d rows read. Enter for more, q to stop: ", page.getScanned(), page.getTotal());
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) return;
+            cursor = page.getNextCursor();
+        }
+        if (!any) System.out.println(emptyMessage);
+    }
+
+    // Lower-cased, for contains()
+    private static String readFilter(String what) {
+        System.out.print("Filter by " + what + " (empty for all): ");
+        return sc.nextLine().trim().toLowerCase();
+    }
+
+    private static boolean contains(String value, String lowerText) {
+        return value != null && value.toLowerCase().contains(lowerText);
+    }
+
     // -------------------- CASE 1: Students --------------------
 
     private static void addStudent() {
@@ -109,13 +200,14 @@ public class Main {
     }
 
     private static void listStudents() {
-        List<Student> students = service.listStudents();
-        if (students.isEmpty()) {
-            System.out.println("No students registered.");
-            return;
-        }
+        String text = readFilter("name or email");
+        browseStudents(text.isEmpty() ? null : s -> contains(s.getFullName(), text) || contains(s.getEmail(), text));
+    }
+
+    private static void browseStudents(Predicate<Student> filter) {
         System.out.println("\n--- Registered Students ---");
-        students.forEach(s -> System.out.println(s.toString()));
+        browse(cursor -> service.pageStudents(cursor, PAGE_SIZE, filter), (pos, s) -> System.out.println(s),
+                filter == null ? "No students registered." : "No matching students.");
     }
 
     // -------------------- CASE 3: Instructors --------------------
@@ -133,13 +225,9 @@ public class Main {
     }
 
     private static void listInstructors() {
-        List<Instructor> instructors = service.listInstructors();
-        if (instructors.isEmpty()) {
-            System.out.println("No instructors registered.");
-            return;
-        }
         System.out.println("\n--- Registered Instructors ---");
-        instructors.forEach(i -> System.out.println(i.toString()));
+        browse(cursor -> service.pageInstructors(cursor, PAGE_SIZE, null), (pos, i) -> System.out.println(i),
+                "No instructors registered.");
     }
 
     // -------------------- CASE 5: Courses --------------------
@@ -157,35 +245,43 @@ public class Main {
     }
 
     private static void listCourses() {
-        List<Course> courses = service.listCourses();
-        if (courses.isEmpty()) {
-            System.out.println("No courses available.");
-            return;
-        }
-        System.out.println("\n--- Available Courses (Index based) ---");
-        for (int i = 0; i < courses.size(); i++) {
-            System.out.printf("%d. %s\n", (i + 1), courses.get(i).toString());
-        }
+        String text = readFilter("code, title or department");
+        browseCourses(text.isEmpty() ? null
+                : c -> contains(c.getCode(), text) || contains(c.getTitle(), text) || contains(c.getDepartment(), text));
+    }
+
+    private static void browseCourses(Predicate<Course> filter) {
+        System.out.println("\n--- Available Courses (by ID) ---");
+        browse(cursor -> service.pageCourses(cursor, PAGE_SIZE, filter),
+                (pos, c) -> System.out.printf("%d. %s\n", c.getId(), c),
+                filter == null ? "No courses available." : "No matching courses.");
+    }
+
+    // Course ids are handed out in order, so none is above this
+    private static int maxCourseId() {
+        return Math.max(1, service.getRegistry().nextCourseId() - 1);
     }
 
     // -------------------- CASE 7 & 8: Enrollments/Grades --------------------
 
     // MANDATORY: Exception Handling (Case 7)
     private static void enrollStudent() {
-        listStudents();
+        browseStudents(null);
         int sId = InputHelper.readInt(sc, "Enter student ID to enroll: ", 1, Integer.MAX_VALUE);
         
-        listCourses();
-        int cIndex = InputHelper.readInt(sc, "Enter course index to enroll: ", 1, service.listCourses().size());
+        browseCourses(null);
+        int courseId = InputHelper.readInt(sc, "Enter course ID to enroll: ", 1, maxCourseId());
         
         System.out.println("Choose semester: 1. SPRING 2. SUMMER 3. FALL");
         int semChoice = InputHelper.readInt(sc, "Enter semester choice: ", 1, 3);
         Semester sem = Semester.values()[semChoice - 1];
 
         try {
-            service.enrollStudent(sId, cIndex, sem);
+            service.enrollStudent(sId, courseId, sem);
         } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
             System.err.println("🚫 Enrollment Failed: " + e.getMessage());
+        } catch (CourseFullException e) {
+            System.out.println("⏳ Waitlisted: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("🚫 Enrollment Failed: Invalid input data. " + e.getMessage());
         }
@@ -193,21 +289,14 @@ public class Main {
 
     // Case 8
     private static void recordGrade() {
-        List<Enrollment> enrollments = service.listEnrollments();
-        if (enrollments.isEmpty()) {
+        int count = service.getEnrollments().size();
+        if (count == 0) {
             System.out.println("No enrollments to grade.");
             return;
         }
         
-        System.out.println("\n--- Current Enrollments (Index based) ---");
-        for (int i = 0; i < enrollments.size(); i++) {
-            Enrollment e = enrollments.get(i);
-            System.out.printf("%d. Student: %s | Course: %s | Grade: %s\n", 
-                              (i + 1), e.getStudent().getFullName(), e.getCourse().getCode(), 
-                              e.getGrade() != null ? e.getGrade().name() : "N/A");
-        }
-
-        int eIndex = InputHelper.readInt(sc, "Enter enrollment index to grade: ", 1, enrollments.size());
+        browseEnrollmentIds();
+        int eIndex = InputHelper.readInt(sc, "Enter enrollment ID to grade: ", 1, service.getEnrollments().size());
         
         System.out.println("Available Grades: S, A, B, C, D, E, F");
         System.out.print("Enter Grade: ");
@@ -225,16 +314,95 @@ public class Main {
         }
     }
     
-    // Case 9
-    private static void listEnrollments() {
-        List<Enrollment> enrollments = service.listEnrollments();
-        if (enrollments.isEmpty()) {
-            System.out.println("No enrollments recorded.");
+    // Enrollment ids stay the same when others are dropped
+    private static void browseEnrollmentIds() {
+        Predicate<Enrollment> filter = enrollmentFilter(readFilter("student ID, course code or semester"));
+        System.out.println("\n--- Current Enrollments (by ID) ---");
+        browse(cursor -> service.pageEnrollments(cursor, PAGE_SIZE, filter),
+                (pos, e) -> System.out.printf("%d. Student: %s | Course: %s (%s) | Grade: %s\n",
+                        e.getId(), e.getStudent().getFullName(), e.getCourse().getCode(), e.getSemester(),
+                        e.getGrade() != null ? e.getGrade().name() : "N/A"),
+                "No matching enrollments.");
+    }
+
+    // Case 24
+    private static void dropEnrollment() {
+        if (service.getEnrollments().isEmpty()) {
+            System.out.println("No enrollments to drop.");
             return;
         }
+        browseEnrollmentIds();
+        int id = InputHelper.readInt(sc, "Enter enrollment ID to drop: ", 1, service.getEnrollments().size());
+        Enrollment e = service.getEnrollment(id);
+        if (e != null && service.dropEnrollment(e)) {
+            System.out.printf("✅ Dropped %s from %s (%s).\n", e.getStudent().getFullName(), e.getCourse().getCode(), e.getSemester());
+        } else {
+            System.err.println("🚫 No enrollment with that ID (it may already be dropped).");
+        }
+    }
+
+    // Case 9
+    private static void listEnrollments() {
+        Predicate<Enrollment> filter = enrollmentFilter(readFilter("student ID, course code or semester"));
         System.out.println("\n--- All Enrollments ---");
         // Using Enrollment's improved toString for display
-        enrollments.forEach(System.out::println); 
+        browse(cursor -> service.pageEnrollments(cursor, PAGE_SIZE, filter), (pos, e) -> System.out.println(e),
+                filter == null ? "No enrollments recorded." : "No matching enrollments.");
+    }
+
+    // A student ID or course code (digits may be either), a semester name, or else a course code; null when empty
+    private static Predicate<Enrollment> enrollmentFilter(String text) {
+        if (text.isEmpty()) return null;
+        if (text.chars().allMatch(Character::isDigit)) {
+            int id = text.length() <= 9 ? Integer.parseInt(text) : -1; // too long for a student ID
+            return e -> e.getStudent().getId() == id || e.getCourse().getCode().equalsIgnoreCase(text);
+        }
+        for (Semester sem : Semester.values()) {
+            if (sem.name().equalsIgnoreCase(text)) return e -> e.getSemester() == sem;
+        }
+        return e -> e.getCourse().getCode().equalsIgnoreCase(text);
+    }
+
+    // -------------------- CASE 23: Roster & Seats --------------------
+
+    private static final int ROSTER_SHOWN = 50;
+
+    private static void showRoster() {
+        browseCourses(null);
+        int courseId = InputHelper.readInt(sc, "Enter course ID: ", 1, maxCourseId());
+        Course c = service.getCourse(courseId);
+        if (c == null) {
+            System.out.println("No course with that ID.");
+            return;
+        }
+        System.out.println("Choose semester: 1. SPRING 2. SUMMER 3. FALL");
+        Semester sem = Semester.values()[InputHelper.readInt(sc, "Enter semester choice: ", 1, 3) - 1];
+
+        List<Enrollment> roster = service.roster(c, sem);
+        List<Student> waitlist = service.waitlist(c, sem);
+        System.out.printf("\n--- %s (%s): %d enrolled | %s ---\n", c.getCode(), sem, roster.size(),
+                c.hasCapacityLimit() ? service.seatsRemaining(c, sem) + " of " + c.getCapacity() + " seats free" : "no seat limit");
+        for (int i = 0; i < Math.min(roster.size(), ROSTER_SHOWN); i++) {
+            Student s = roster.get(i).getStudent();
+            System.out.printf("%d. %s (ID %d)\n", (i + 1), s.getFullName(), s.getId());
+        }
+        if (roster.size() > ROSTER_SHOWN) System.out.printf("... and %d more\n", roster.size() - ROSTER_SHOWN);
+        if (!waitlist.isEmpty()) {
+            System.out.println("--- Waitlist ---");
+            for (int i = 0; i < waitlist.size(); i++) {
+                System.out.printf("%d. %s (ID %d)\n", (i + 1), waitlist.get(i).getFullName(), waitlist.get(i).getId());
+            }
+        }
+
+        System.out.print("New capacity (0 = unlimited, empty to keep): ");
+        String input = sc.nextLine().trim();
+        if (input.isEmpty()) return;
+        try {
+            int promoted = service.setCourseCapacity(c, Integer.parseInt(input));
+            System.out.println("✅ Capacity updated." + (promoted > 0 ? " Promoted from waitlists: " + promoted + "." : ""));
+        } catch (IllegalArgumentException e) {
+            System.err.println("🚫 Invalid capacity: " + input);
+        }
     }
 
     // -------------------- CASE 12: Assignment --------------------
@@ -243,13 +411,13 @@ public class Main {
         listInstructors();
         int iId = InputHelper.readInt(sc, "Enter Instructor ID to assign: ", 1, Integer.MAX_VALUE);
 
-        listCourses();
-        int cIndex = InputHelper.readInt(sc, "Enter Course Index to assign: ", 1, service.listCourses().size());
+        browseCourses(null);
+        int courseId = InputHelper.readInt(sc, "Enter Course ID to assign: ", 1, maxCourseId());
 
-        if (service.assignInstructorToCourse(iId, cIndex)) {
+        if (service.assignInstructorToCourse(iId, courseId)) {
             System.out.println("✅ Instructor assigned successfully.");
         } else {
-            System.err.println("🚫 Failed to assign instructor. Check IDs/Index.");
+            System.err.println("🚫 Failed to assign instructor. Check IDs.");
         }
     }
 
@@ -263,22 +431,115 @@ public class Main {
         service.printTranscript(sId);
     }
 
+    // -------------------- CASE 16: GPA Reports --------------------
+
+    private static void showGpaReports() {
+        int n = InputHelper.readInt(sc, "How many top students to show: ", 1, 1000);
+        List<Student> top = service.topStudentsByGpa(n);
+        System.out.println("\n--- Top Students by GPA ---");
+        if (top.isEmpty()) System.out.println("No graded students yet.");
+        for (int i = 0; i < top.size(); i++) {
+            Student s = top.get(i);
+            System.out.printf("%d. %s (ID %d) | GPA: %.2f\n", (i + 1), s.getFullName(), s.getId(), s.getGpa());
+        }
+
+        System.out.println("Choose semester for dean's list: 1. SPRING 2. SUMMER 3. FALL");
+        Semester sem = Semester.values()[InputHelper.readInt(sc, "Enter semester choice: ", 1, 3) - 1];
+        List<Student> deans = service.deansList(sem);
+        System.out.printf("\n--- Dean's List (%s, GPA >= %.1f) ---\n", sem, config.getDeansListMinGpa());
+        if (deans.isEmpty()) System.out.println("No students qualify.");
+        deans.forEach(s -> System.out.printf("%s (ID %d) | Semester GPA: %.2f\n", s.getFullName(), s.getId(), s.getGpa(sem)));
+    }
+
+    // -------------------- CASE 17: Bulk Enrollment --------------------
+
+    private static void bulkEnroll() {
+        System.out.print("Enter path to enrollment requests CSV: ");
+        Path path = Paths.get(sc.nextLine());
+        System.out.print("Apply all-or-nothing? (y/n): ");
+        boolean atomic = sc.nextLine().trim().equalsIgnoreCase("y");
+
+        try {
+            ImportReport report = new ImportReport(path.toString());
+            List<EnrollmentRequest> requests = ImportExportService.importEnrollmentRequests(path, report);
+            printImportProblems(report);
+            BatchResult result = service.enrollBatch(requests, atomic);
+
+            System.out.println("✅ " + result);
+            if (!result.getRejected().isEmpty()) {
+                System.out.println("--- Rejected Requests ---");
+                result.getRejected().forEach(System.out::println);
+            }
+        } catch (IOException e) {
+            System.err.println("🚫 Error reading enrollment requests: " + e.getMessage());
+        }
+    }
+
     // -------------------- DATA IMPORT/EXPORT (Cases 10, 11, 14, 0) --------------------
 
     private static void importDataOnStart() {
         try {
+            // Fast path: the binary snapshot, unless a CSV file was changed after it was written
+            if (SnapshotService.isUsable(config.getSnapshotFile(),
+                    config.getStudentFile(), config.getCourseFile(), config.getEnrollFile())) {
+                try {
+                    SnapshotService.Snapshot snapshot = SnapshotService.read(config.getSnapshotFile());
+                    service.loadStudents(snapshot.getStudents());
+                    service.loadInstructors(snapshot.getInstructors());
+                    service.loadCourses(snapshot.getCourses());
+                    service.loadEnrollments(snapshot.getEnrollments());
+                    System.out.println("✅ Data loaded from snapshot on start.");
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Snapshot unreadable, falling back to CSV: " + e.getMessage());
+                }
+            }
+
             // Accessing files via Singleton
-            if (Files.exists(config.getStudentFile())) service.getStudents().addAll(ImportExportService.importStudents(config.getStudentFile()));
-            if (Files.exists(config.getCourseFile())) service.getCourses().addAll(ImportExportService.importCourses(config.getCourseFile()));
-            if (Files.exists(config.getEnrollFile())) service.getEnrollments().addAll(
-                    ImportExportService.importEnrollments(config.getEnrollFile(), service.getStudents(), service.getCourses()));
-            
+            // Loading through the service keeps the registry indexes in sync
+            if (Files.exists(config.getStudentFile())) {
+                ImportReport report = new ImportReport(config.getStudentFile().toString());
+                service.loadStudents(ImportExportService.importStudents(config.getStudentFile(), report));
+                printImportProblems(report);
+            }
+            if (Files.exists(config.getCourseFile())) {
+                ImportReport report = new ImportReport(config.getCourseFile().toString());
+                service.loadCourses(ImportExportService.importCourses(config.getCourseFile(), report));
+                printImportProblems(report);
+            }
+            if (Files.exists(config.getEnrollFile())) {
+                ImportReport report = new ImportReport(config.getEnrollFile().toString());
+                service.loadEnrollments(importEnrollmentsFile(config.getEnrollFile(), report));
+                printImportProblems(report);
+            }
+
             System.out.println("✅ Data imported from default files on start.");
         } catch (IOException e) { 
             System.err.println("Error importing data on start: " + e.getMessage()); 
         }
     }
     
+    // Large enrollment files are split and parsed on several threads when configured
+    private static List<Enrollment> importEnrollmentsFile(Path path, ImportReport report) throws IOException {
+        var students = service.getRegistry().studentIdIndex();
+        var courses = service.getRegistry().courseCodeIndex();
+        int parallelism = config.getImportParallelism();
+        if (parallelism > 1 && !ImportExportService.isGzip(path) && Files.size(path) >= config.getParallelImportMinBytes()) {
+            return ParallelEnrollmentImporter.importEnrollments(path, students, courses, report, parallelism);
+        }
+        return ImportExportService.importEnrollments(path, students, courses, report);
+    }
+
+    // Lists the malformed rows an import skipped (capped so a broken file doesn't flood the console)
+    private static void printImportProblems(ImportReport report) {
+        if (!report.hasProblems()) return;
+        System.err.println("⚠️ " + report);
+        report.getProblems().stream().limit(10).forEach(p -> System.err.println("   " + p));
+        if (report.getProblemCount() > 10) {
+            System.err.printf("   ... and %d more\n", report.getProblemCount() - 10);
+        }
+    }
+
     // Case 10: Import from manual path
     private static void importDataManual() {
          System.out.print("Enter path to import student CSV (e.g., manual/students.csv): ");
@@ -287,9 +548,12 @@ public class Main {
          
          try {
              // Clear existing data before manual import
-             service.getStudents().clear(); 
-             service.getStudents().addAll(ImportExportService.importStudents(path));
+             ImportReport report = new ImportReport(pathStr);
+             service.replaceStudents(ImportExportService.importStudents(path, report));
              System.out.println("✅ Students imported successfully from " + pathStr);
+             printImportProblems(report);
+             // A wholesale replace isn't journaled, so persist the new state in full right away
+             System.out.println("✅ " + saveAllData());
          } catch (IOException e) {
              System.err.println("🚫 Error importing data: " + e.getMessage());
          }
@@ -297,28 +561,249 @@ public class Main {
     }
 
     // Cases 14 & 0: Autosaves data on exit or manually saves to default files.
+    // Every change is already in the journal, so saving only waits for it to be on disk;
+    // the CSV/snapshot files are rewritten (and the journal emptied) once it has grown large.
+    // From the menu that rewrite runs in the background; on exit it runs before leaving.
     private static void exportDataOnExit(boolean isExit) {
         try {
-            ImportExportService.exportStudents(service.listStudents(), config.getStudentFile());
-            ImportExportService.exportCourses(service.listCourses(), config.getCourseFile());
-            ImportExportService.exportEnrollments(service.listEnrollments(), config.getEnrollFile());
+            syncJournal();
+            boolean compact = journal == null || journal.size() >= config.getJournalCompactBytes();
 
             if (isExit) {
-                System.out.println("✅ Current data state saved successfully before exit.");
+                System.out.println("✅ " + (compact ? saveAllData() : "Current data state saved successfully before exit."));
+            } else if (compact) {
+                scheduler.request("autosave");
+                System.out.println("✅ Changes saved (journal); rewriting the data files in the background.");
             } else {
-                System.out.println("✅ Data saved successfully to default files.");
+                System.out.println("✅ Data saved successfully (journal).");
             }
         } catch (IOException e) {
             System.err.println("Error saving data: " + e.getMessage());
         }
     }
-    
+
+    // Rewrites the default files from one consistent view of the data and compacts the journal into them.
+    // Synchronized: the menu and the background autosave/backup may both call it.
+    private static synchronized String saveAllData() throws IOException {
+        // Rotate first so changes made while the files are written stay in the new journal
+        if (journal != null) journal.beginCompaction();
+
+        // Captured without blocking operators; each file is streamed and replaced atomically
+        StateView state = service.captureState();
+        ImportExportService.exportStudents(state.getStudents(), config.getStudentFile());
+        ImportExportService.exportCourses(state.getCourses(), config.getCourseFile());
+        ImportExportService.exportEnrollments(state.getEnrollments(), config.getEnrollFile());
+        // Written last so it is newer than the CSVs and used on the next start
+        SnapshotService.write(config.getSnapshotFile(), state.getStudents(), state.getInstructors(),
+                state.getCourses(), state.getEnrollments());
+
+        if (journal != null) journal.finishCompaction();
+        return String.format("Data saved successfully to default files (%d students, %d courses, %d enrollments).",
+                state.getStudents().size(), state.getCourses().size(), state.getEnrollments().size());
+    }
+
+    // -------------------- Background tasks --------------------
+
+    private static void startScheduler() {
+        scheduler = new TaskScheduler();
+        scheduler.register("autosave", Main::autosave);
+        scheduler.register("backup", Main::runBackupAndCheckSize);
+        scheduler.schedule("autosave", config.getAutosaveInterval());
+        scheduler.schedule("backup", config.getBackupInterval());
+    }
+
+    // Safe settings (credit limit, thresholds, intervals...) are picked up from ccrm.properties while running
+    private static void watchConfig() {
+        config.addSettingsListener(settings -> {
+            service.updateSettings(settings);
+            scheduler.schedule("autosave", settings.getAutosaveInterval());
+            scheduler.schedule("backup", settings.getBackupInterval());
+        });
+        try {
+            config.startWatching();
+        } catch (IOException e) {
+            System.err.println("Config changes will need a restart (cannot watch " + config.getConfigFile() + "): " + e.getMessage());
+        }
+    }
+
+    private static void stopScheduler() {
+        try {
+            scheduler.shutdown(Duration.ofMinutes(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Folds the journal into the data files, unless nothing changed since the last full save
+    private static String autosave() throws IOException {
+        if (journal != null) {
+            journal.sync();
+            if (journal.size() == 0) return "No changes since the last save.";
+        }
+        return saveAllData();
+    }
+
+    // Case 19
+    private static void showBackgroundStatus() {
+        System.out.println("\n--- Background Tasks ---");
+        scheduler.status().forEach(System.out::println);
+    }
+
+    // -------------------- CASE 20: Metrics --------------------
+
+    private static void showMetrics() {
+        System.out.println();
+        System.out.print(Metrics.report());
+        System.out.print("Dump to file (empty to skip): ");
+        String file = sc.nextLine().trim();
+        if (file.isEmpty()) return;
+        try {
+            Metrics.dump(Paths.get(file));
+            System.out.println("✅ Metrics written to " + Paths.get(file).toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("🛑 Cannot write metrics: " + e.getMessage());
+        }
+    }
+
+    // -------------------- CASE 21: Search --------------------
+
+    private static final int SEARCH_RESULTS = 10;
+
+    private static void search() {
+        System.out.println("Search: 1. Courses 2. Students 3. Instructors");
+        int kind = InputHelper.readInt(sc, "Enter choice: ", 1, 3);
+        System.out.print("Enter search text (typos are tolerated): ");
+        String query = sc.nextLine();
+
+        List<?> results = switch (kind) {
+            case 1 -> service.searchCourses(query, SEARCH_RESULTS);
+            case 2 -> service.searchStudents(query, SEARCH_RESULTS);
+            default -> service.searchInstructors(query, SEARCH_RESULTS);
+        };
+        if (results.isEmpty()) {
+            System.out.println("No matches.");
+            return;
+        }
+        System.out.println("\n--- Best Matches (" + results.size() + ") ---");
+        results.forEach(System.out::println);
+    }
+
+    // -------------------- CASE 22: Enrollment Queries --------------------
+
+    private static final List<GroupBy<?>> GROUPINGS = List.of(
+            GroupBy.SEMESTER, GroupBy.COURSE, GroupBy.DEPARTMENT, GroupBy.INSTRUCTOR, GroupBy.GRADE, GroupBy.STUDENT);
+
+    private static void queryEnrollments() {
+        EnrollmentQuery.Builder q = EnrollmentQuery.builder();
+        try {
+            System.out.println("Leave a filter empty to match everything.");
+            String ids = prompt("Student IDs (comma-separated): ");
+            if (!ids.isEmpty()) {
+                q.students(splitList(ids).stream().map(Integer::valueOf).toArray(Integer[]::new));
+            }
+            String codes = prompt("Course codes (comma-separated): ");
+            if (!codes.isEmpty()) q.courses(splitList(codes).toArray(String[]::new));
+            String dept = prompt("Department: ");
+            if (!dept.isEmpty()) q.department(dept);
+            String sem = prompt("Semester (SPRING, SUMMER, FALL): ");
+            if (!sem.isEmpty()) q.semesters(Semester.valueOf(sem.toUpperCase()));
+            String grades = prompt("Grades, lowest-highest (e.g. C-S), or NONE for ungraded: ");
+            if (grades.equalsIgnoreCase("NONE")) {
+                q.ungraded();
+            } else if (!grades.isEmpty()) {
+                String[] range = grades.toUpperCase().split("-", 2);
+                Grade lowest = Grade.valueOf(range[0].trim());
+                q.gradeBetween(lowest, range.length > 1 ? Grade.valueOf(range[1].trim()) : lowest);
+            }
+            String credits = prompt("Credits, min-max (e.g. 3-4): ");
+            if (!credits.isEmpty()) {
+                String[] range = credits.split("-", 2);
+                int min = Integer.parseInt(range[0].trim());
+                q.credits(min, range.length > 1 ? Integer.parseInt(range[1].trim()) : min);
+            }
+        } catch (IllegalArgumentException e) { // also NumberFormatException
+            System.out.println("🛑 Invalid filter: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Group by: 0. None (list enrollments) 1. Semester 2. Course 3. Department "
+                + "4. Instructor 5. Grade 6. Student");
+        int group = InputHelper.readInt(sc, "Enter choice: ", 0, GROUPINGS.size());
+        if (group == 0) {
+            System.out.println("Order: 0. None 1. Best grade first 2. Student ID 3. Course code");
+            int order = InputHelper.readInt(sc, "Enter choice: ", 0, 3);
+            if (order == 1) q.orderBy(Comparator.comparing(Enrollment::getGrade, Comparator.nullsLast(Comparator.naturalOrder())));
+            if (order == 2) q.orderBy(Comparator.comparingInt(e -> e.getStudent().getId()));
+            if (order == 3) q.orderBy(Comparator.comparing(e -> e.getCourse().getCode()));
+            int limit = InputHelper.readInt(sc, "Max rows to show (0 = all): ", 0, Integer.MAX_VALUE);
+            if (limit > 0) q.limit(limit);
+        }
+
+        EnrollmentQuery query = q.build();
+        System.out.println("\n--- Query Plan ---");
+        System.out.print(service.explain(query));
+        if (group == 0) {
+            List<Enrollment> rows = service.query(query);
+            System.out.println("\n--- Results (" + rows.size() + ") ---");
+            rows.forEach(e -> System.out.println("Student " + e.getStudent().getId() + " | " + e));
+        } else {
+            printGroups(service.aggregate(query, GROUPINGS.get(group - 1)));
+        }
+    }
+
+    private static <K> void printGroups(Map<K, EnrollmentStats> groups) {
+        System.out.println("\n--- Groups (" + groups.size() + ") ---");
+        groups.forEach((key, stats) -> System.out.println((key == null ? "(none)" : key) + " | " + stats));
+    }
+
+    private static String prompt(String text) {
+        System.out.print(text);
+        return sc.nextLine().trim();
+    }
+
+    private static List<String> splitList(String text) {
+        return Arrays.stream(text.split(",")).map(String::trim).filter(x -> !x.isEmpty()).toList();
+    }
+
+    // -------------------- Journal --------------------
+
+    // Replays changes recorded after the last full save, then starts recording new ones
+    private static void openJournal() {
+        try {
+            int replayed = Journal.replay(config.getJournalFile(), service);
+            if (replayed > 0) System.out.println("✅ Replayed " + replayed + " journaled changes.");
+            journal = new Journal(config.getJournalFile(), config.getJournalGroupCommitMillis());
+            service.addListener(journal);
+        } catch (IOException e) {
+            System.err.println("🛑 Journal unavailable, changes are only saved on exit: " + e.getMessage());
+        }
+    }
+
+    private static void syncJournal() {
+        if (journal == null) return;
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            System.err.println("🛑 Journal write failed: " + e.getMessage());
+        }
+    }
+
+    private static void closeJournal() {
+        if (journal == null) return;
+        service.removeListener(journal);
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
     // Case 11: Export to user-specified path
     private static void exportDataManual() {
-        System.out.print("Enter path to save student CSV: ");
+        System.out.print("Enter path to save student CSV (end with .gz to compress): ");
         Path path = Paths.get(sc.nextLine());
         try {
-            ImportExportService.exportStudents(service.listStudents(), path);
+            ImportExportService.exportStudents(service.getStudents(), path);
             System.out.println("✅ Students data exported successfully to " + path);
         } catch (IOException e) { 
             System.err.println("🚫 Error exporting data: " + e.getMessage()); 
@@ -326,29 +811,75 @@ public class Main {
     }
 
     // -------------------- CASE 15: NIO.2 & RECURSION DEMO --------------------
-    
-    private static void runBackupAndCheckSize() {
+
+    private static void requestBackup() {
+        System.out.print("Verify backup checksums? (y/n): ");
+        if (sc.nextLine().trim().equalsIgnoreCase("y")) verifyNextBackup.set(true);
+
+        if (scheduler.request("backup")) {
+            System.out.println("🕒 Backup started in the background; menu 19 shows its status.");
+        } else {
+            System.out.println("🕒 A backup is already queued; menu 19 shows its status.");
+        }
+    }
+
+    // Runs on the background thread (scheduled, or requested from menu 15)
+    private static String runBackupAndCheckSize() throws IOException {
+        saveAllData(); // Ensure the default files hold the current state before backup
+
+        // Only content not already in the store is written; unchanged files are just referenced
+        BackupUtil.BackupSummary summary = BackupUtil.backupData(config.getDataFolder(), config.getBackupFolder());
+        if (summary == null) return "No data folder found to backup.";
+
+        int pruned = BackupUtil.prune(config.getBackupFolder(), config.getBackupKeepCount(), config.getBackupMaxAge());
+
+        // Mandatory recursive size check using BackupUtil's Stream implementation
+        long totalSize = BackupUtil.calculateSizeRecursive(config.getBackupFolder());
+
+        return String.format("%s; pruned %d; store %.2f KB; %s", summary, pruned, totalSize / 1024.0,
+                scanBackups(verifyNextBackup.getAndSet(false)));
+    }
+
+    // Checks every backup against its manifest; results for unchanged backups come from the cache
+    private static String scanBackups(boolean verify) throws IOException {
+        if (backupScanner == null) {
+            backupScanner = new BackupScanner(config.getBackupFolder(), config.getBackupScanParallelism());
+        }
+        BackupScanner.ScanResult result = backupScanner.scan(verify);
+
+        List<BackupScanner.BackupStatus> damaged = result.getDamaged();
+        String health = damaged.isEmpty() ? (verify ? "all verified" : "all complete")
+                : damaged.size() + " DAMAGED: " + damaged.stream().map(BackupScanner.BackupStatus::getName).toList();
+        return String.format("%d backups (%d cached), %s", result.getBackups().size(), result.getCachedBackups(), health);
+    }
+
+    // -------------------- CASE 18: Restore --------------------
+
+    private static void restoreBackup() {
         try {
-            exportDataOnExit(false); // Ensure current state is saved before backup
-
-            System.out.println("\nStarting data backup to timestamped folder...");
-            
-            // Run the backup using the data folder path from Singleton
-            Path newBackupDir = BackupUtil.backupData(config.getDataFolder()); 
-
-            if (newBackupDir != null) {
-                System.out.println("✅ Backup successful! Created folder: " + newBackupDir.getFileName());
-
-                // Mandatory recursive size check using BackupUtil's Stream implementation
-                long totalSize = BackupUtil.calculateSizeRecursive(newBackupDir);
-                
-                double totalSizeKB = totalSize / 1024.0; 
-                
-                System.out.printf("📁 Total size of backup files (recursive utility demo): %.2f KB\n", totalSizeKB);
+            List<String> backups = BackupUtil.listBackups(config.getBackupFolder());
+            if (backups.isEmpty()) {
+                System.out.println("No backups available.");
+                return;
+            }
+            System.out.println("\n--- Backups (oldest first) ---");
+            for (int i = 0; i < backups.size(); i++) {
+                System.out.printf("%d. %s\n", (i + 1), backups.get(i));
+            }
+            int index = InputHelper.readInt(sc, "Enter backup to restore: ", 1, backups.size());
+
+            System.out.print("Enter folder to restore into: ");
+            Path target = Paths.get(sc.nextLine().trim());
+            // The live data folder is rewritten on save, so restoring over it would be silently undone
+            if (target.toAbsolutePath().normalize().equals(config.getDataFolder().toAbsolutePath().normalize())) {
+                System.err.println("🚫 Restore into another folder, then exit and copy it over the data folder.");
+                return;
             }
 
+            int files = BackupUtil.restore(config.getBackupFolder(), backups.get(index - 1), target);
+            System.out.println("✅ Restored " + files + " files from " + backups.get(index - 1) + " into " + target);
         } catch (IOException e) {
-            System.err.println("🛑 Backup failed due to IO error: " + e.getMessage());
+            System.err.println("🛑 Restore failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
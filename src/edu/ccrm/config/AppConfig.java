@@ -9,38 +9,69 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import edu.ccrm.util.AppendOnlyList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class AppConfig {
     
-    // 1. Private static instance of the class (The Singleton)
-    private static AppConfig instance; 
+    // 1. The Singleton instance lives in a holder class: created lazily on first access,
+    //    and the JVM's class initialization makes that thread-safe without locking.
+    private static class Holder {
+        private static final AppConfig INSTANCE = new AppConfig();
+    }
 
     // Configuration Fields (Now instance fields, not static)
     private final Path dataFolder;
     private final Path studentFile;
     private final Path courseFile;
     private final Path enrollFile;
+    private final Path snapshotFile; // Binary fast-startup copy of the CSV data
+    private final Path journalFile;  // Write-ahead log of changes since the last full save
     private final Path backupFolder; // Added for clarity with BackupUtil
 
-    // Mandatory business rule property
-    private final int maxCreditsPerSemester = 21; 
+    // Every tunable value (business rules, thread counts, sizes, intervals) lives in an
+    // immutable Settings snapshot loaded from ccrm.properties plus env/system overrides.
+    // A reload swaps in a new snapshot; paths and other restart-only keys keep their startup value.
+    private final Path configFile;
+    private volatile Settings settings;
+    private final List<Consumer<Settings>> settingsListeners = new CopyOnWriteArrayList<>();
+    private Thread configWatcher;
 
-    private final List<Student> students = new ArrayList<>();
-    private final List<Instructor> instructors = new ArrayList<>();
-    private final List<Course> courses = new ArrayList<>();
-    private final List<Enrollment> enrollments = new ArrayList<>();
+    // Thread-safe lists: reads never block. Students/instructors/courses change rarely
+    // (copy-on-write); enrollments grow constantly (chunked append-only list).
+    private final List<Student> students = new CopyOnWriteArrayList<>();
+    private final List<Instructor> instructors = new CopyOnWriteArrayList<>();
+    private final List<Course> courses = new CopyOnWriteArrayList<>();
+    private final List<Enrollment> enrollments = new AppendOnlyList<>();
 
 
     // 2. Private Constructor (Prevents direct instantiation)
     private AppConfig() {
+        // Config file: -Dccrm.config=..., else $CCRM_CONFIG, else ./ccrm.properties
+        String configPath = System.getProperty("ccrm.config", System.getenv().getOrDefault("CCRM_CONFIG", "ccrm.properties"));
+        this.configFile = Paths.get(configPath);
+        List<String> warnings = new ArrayList<>();
+        this.settings = Settings.load(configFile, System.getenv(), System.getProperties(), warnings);
+        warnings.forEach(w -> System.err.println("AppConfig: " + w));
+
         // Initialize paths
-        this.dataFolder = Paths.get("data");
+        this.dataFolder = settings.getDataFolder();
         this.studentFile = dataFolder.resolve("students.csv");
         this.courseFile = dataFolder.resolve("courses.csv");
         this.enrollFile = dataFolder.resolve("enrollments.csv");
-        this.backupFolder = Paths.get("backups"); // Use a separate folder for backups
+        this.snapshotFile = dataFolder.resolve("ccrm.snapshot");
+        this.journalFile = dataFolder.resolve("ccrm.journal");
+        this.backupFolder = settings.getBackupFolder(); // Use a separate folder for backups
 
         // Ensure folders exist using NIO.2
         try {
@@ -59,11 +90,7 @@ public class AppConfig {
 
     // 3. Public static method to get the instance (The access point)
     public static AppConfig getInstance() {
-        if (instance == null) {
-            // Simple lazy initialization (thread safety can be added if needed, but simple is often fine)
-            instance = new AppConfig();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
     // Public Getters for all fields
@@ -71,11 +98,95 @@ public class AppConfig {
     public Path getStudentFile() { return studentFile; }
     public Path getCourseFile() { return courseFile; }
     public Path getEnrollFile() { return enrollFile; }
+    public Path getSnapshotFile() { return snapshotFile; }
+    public Path getJournalFile() { return journalFile; }
     public Path getBackupFolder() { return backupFolder; }
-    public int getMaxCreditsPerSemester() { return maxCreditsPerSemester; }
+    public Path getConfigFile() { return configFile; }
+
+    // Tunables read the current snapshot, so they follow hot reloads
+    public Settings getSettings() { return settings; }
+    public int getMaxCreditsPerSemester() { return settings.getMaxCreditsPerSemester(); }
+    public double getDeansListMinGpa() { return settings.getDeansListMinGpa(); }
+    public int getImportParallelism() { return settings.getImportParallelism(); }
+    public long getParallelImportMinBytes() { return settings.getParallelImportMinBytes(); }
+    public long getJournalCompactBytes() { return settings.getJournalCompactBytes(); }
+    public long getJournalGroupCommitMillis() { return settings.getJournalGroupCommitMillis(); }
+    public int getBackupKeepCount() { return settings.getBackupKeepCount(); }
+    public Duration getBackupMaxAge() { return settings.getBackupMaxAge(); }
+    public int getBackupScanParallelism() { return settings.getBackupScanParallelism(); }
+    public Duration getAutosaveInterval() { return settings.getAutosaveInterval(); }
+    public Duration getBackupInterval() { return settings.getBackupInterval(); }
 
     public List<Student> getStudents() { return students; }
     public List<Instructor> getInstructors() { return instructors; }
     public List<Course> getCourses() { return courses; }
     public List<Enrollment> getEnrollments() { return enrollments; }
-}
\ No newline at end of file
+
+    // -------------------- Reloading --------------------
+
+    /**
+     * Called with the new Settings after every reload that changed something.
+     */
+    public void addSettingsListener(Consumer<Settings> listener) {
+        settingsListeners.add(listener);
+    }
+
+    /**
+     * Re-reads the config file and overrides, applying the reloadable keys.
+     * @return one line per changed or ignored key (empty if nothing changed).
+     */
+    public synchronized List<String> reload() {
+        List<String> messages = new ArrayList<>();
+        Settings loaded = Settings.load(configFile, System.getenv(), System.getProperties(), messages);
+        Settings current = settings;
+        Settings next = current.withReloadable(loaded);
+
+        for (Settings.Key k : current.changedKeys(loaded)) {
+            messages.add(k.isReloadable()
+                    ? k.getProperty() + ": " + current.get(k) + " -> " + loaded.get(k)
+                    : k.getProperty() + " changed to " + loaded.get(k) + " (takes effect after a restart)");
+        }
+        if (!next.changedKeys(current).isEmpty()) {
+            settings = next;
+            settingsListeners.forEach(l -> l.accept(next));
+        }
+        return messages;
+    }
+
+    /**
+     * Starts a daemon thread that reloads the settings whenever the config file changes.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (configWatcher != null) return;
+        Path dir = configFile.toAbsolutePath().getParent();
+        Path name = configFile.getFileName();
+        WatchService watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        configWatcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean ours = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        ours |= name.equals(event.context());
+                    }
+                    key.reset();
+                    if (!ours) continue;
+
+                    // Editors often write in several steps; let the file settle before reading it
+                    WatchKey more;
+                    while ((more = watcher.poll(200, TimeUnit.MILLISECONDS)) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    reload().forEach(m -> System.out.println("AppConfig: " + m));
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stopped
+            }
+        }, "ccrm-config-watcher");
+        configWatcher.setDaemon(true);
+        configWatcher.start();
+    }
+}
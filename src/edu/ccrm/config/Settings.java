@@ -0,0 +1,214 @@
+package edu.ccrm.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable snapshot of every tunable setting.
+ *
+ * Values are resolved per key from, in increasing precedence: the built-in default, the
+ * properties file, an environment variable (CCRM_IMPORT_PARALLELISM for
+ * ccrm.import.parallelism) and a system property (-Dccrm.import.parallelism=4).
+ * An invalid value is reported and the next lower source is used instead.
+ *
+ * A Settings object never changes; a reload produces a new one (see AppConfig), and
+ * only the keys marked reloadable take effect without a restart.
+ */
+public final class Settings {
+
+    private enum Type { PATH, INT, LONG, DOUBLE }
+
+    public enum Key {
+        DATA_DIR("ccrm.data.dir", "data", Type.PATH, false),
+        BACKUP_DIR("ccrm.backup.dir", "backups", Type.PATH, false),
+        MAX_CREDITS("ccrm.credits.maxPerSemester", "21", Type.INT, true),
+        DEANS_LIST_MIN_GPA("ccrm.deansList.minGpa", "9.0", Type.DOUBLE, true),
+        IMPORT_PARALLELISM("ccrm.import.parallelism", "0", Type.INT, true),
+        PARALLEL_IMPORT_MIN_BYTES("ccrm.import.parallelMinBytes", String.valueOf(16L << 20), Type.LONG, true),
+        QUERY_PARALLEL_MIN_ROWS("ccrm.query.parallelMinRows", "100000", Type.INT, true),
+        JOURNAL_COMPACT_BYTES("ccrm.journal.compactBytes", String.valueOf(8L << 20), Type.LONG, true),
+        JOURNAL_GROUP_COMMIT_MILLIS("ccrm.journal.groupCommitMillis", "2", Type.LONG, false),
+        BACKUP_KEEP_COUNT("ccrm.backup.keepCount", "48", Type.INT, true),
+        BACKUP_MAX_AGE_DAYS("ccrm.backup.maxAgeDays", "30", Type.INT, true),
+        BACKUP_SCAN_THREADS("ccrm.backup.scanThreads",
+                String.valueOf(Runtime.getRuntime().availableProcessors()), Type.INT, false),
+        AUTOSAVE_MINUTES("ccrm.autosave.minutes", "5", Type.INT, true),
+        BACKUP_MINUTES("ccrm.backup.minutes", "60", Type.INT, true);
+
+        private final String property;
+        private final String defaultValue;
+        private final Type type;
+        private final boolean reloadable;
+
+        Key(String property, String defaultValue, Type type, boolean reloadable) {
+            this.property = property;
+            this.defaultValue = defaultValue;
+            this.type = type;
+            this.reloadable = reloadable;
+        }
+
+        public String getProperty() { return property; }
+        public String getDefaultValue() { return defaultValue; }
+        public boolean isReloadable() { return reloadable; }
+
+        /** ccrm.import.parallelMinBytes -> CCRM_IMPORT_PARALLEL_MIN_BYTES */
+        public String getEnvName() {
+            return property.replaceAll("([a-z])([A-Z])", "$1_$2").replace('.', '_').toUpperCase(Locale.ROOT);
+        }
+
+        // Throws IllegalArgumentException if the value doesn't fit the key
+        private void validate(String value) {
+            switch (type) {
+                case PATH -> {
+                    if (value.isBlank()) throw new IllegalArgumentException("empty path");
+                    Paths.get(value);
+                }
+                case INT -> {
+                    if (Integer.parseInt(value) < 0) throw new IllegalArgumentException("must not be negative");
+                }
+                case LONG -> {
+                    if (Long.parseLong(value) < 0) throw new IllegalArgumentException("must not be negative");
+                }
+                case DOUBLE -> {
+                    double d = Double.parseDouble(value);
+                    if (Double.isNaN(d) || d < 0) throw new IllegalArgumentException("must not be negative");
+                }
+            }
+            if ((this == MAX_CREDITS || this == BACKUP_SCAN_THREADS) && Integer.parseInt(value) < 1) {
+                throw new IllegalArgumentException("must be at least 1");
+            }
+        }
+    }
+
+    private final Map<Key, String> values;
+
+    // Parsed once, so reads on hot paths are plain field loads
+    private final Path dataFolder;
+    private final Path backupFolder;
+    private final int maxCreditsPerSemester;
+    private final double deansListMinGpa;
+    private final int importParallelism;
+    private final long parallelImportMinBytes;
+    private final int queryParallelMinRows;
+    private final long journalCompactBytes;
+    private final long journalGroupCommitMillis;
+    private final int backupKeepCount;
+    private final Duration backupMaxAge;
+    private final int backupScanParallelism;
+    private final Duration autosaveInterval;
+    private final Duration backupInterval;
+
+    private Settings(Map<Key, String> values) {
+        this.values = Collections.unmodifiableMap(new EnumMap<>(values));
+        this.dataFolder = Paths.get(values.get(Key.DATA_DIR));
+        this.backupFolder = Paths.get(values.get(Key.BACKUP_DIR));
+        this.maxCreditsPerSemester = Integer.parseInt(values.get(Key.MAX_CREDITS));
+        this.deansListMinGpa = Double.parseDouble(values.get(Key.DEANS_LIST_MIN_GPA));
+        this.importParallelism = Integer.parseInt(values.get(Key.IMPORT_PARALLELISM));
+        this.parallelImportMinBytes = Long.parseLong(values.get(Key.PARALLEL_IMPORT_MIN_BYTES));
+        this.queryParallelMinRows = Integer.parseInt(values.get(Key.QUERY_PARALLEL_MIN_ROWS));
+        this.journalCompactBytes = Long.parseLong(values.get(Key.JOURNAL_COMPACT_BYTES));
+        this.journalGroupCommitMillis = Long.parseLong(values.get(Key.JOURNAL_GROUP_COMMIT_MILLIS));
+        this.backupKeepCount = Integer.parseInt(values.get(Key.BACKUP_KEEP_COUNT));
+        this.backupMaxAge = Duration.ofDays(Integer.parseInt(values.get(Key.BACKUP_MAX_AGE_DAYS)));
+        this.backupScanParallelism = Integer.parseInt(values.get(Key.BACKUP_SCAN_THREADS));
+        this.autosaveInterval = Duration.ofMinutes(Integer.parseInt(values.get(Key.AUTOSAVE_MINUTES)));
+        this.backupInterval = Duration.ofMinutes(Integer.parseInt(values.get(Key.BACKUP_MINUTES)));
+    }
+
+    public static Settings defaults() {
+        Map<Key, String> values = new EnumMap<>(Key.class);
+        for (Key k : Key.values()) values.put(k, k.defaultValue);
+        return new Settings(values);
+    }
+
+    /**
+     * Resolves every key from the file (if it exists), the environment and the system properties.
+     * Problems (unreadable file, invalid values) are added to 'warnings'; loading never fails.
+     */
+    public static Settings load(Path file, Map<String, String> env, Properties system, List<String> warnings) {
+        Properties fromFile = new Properties();
+        if (file != null && Files.isRegularFile(file)) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                fromFile.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                warnings.add("Cannot read " + file + ": " + e.getMessage());
+            }
+        }
+
+        Map<Key, String> values = new EnumMap<>(Key.class);
+        for (Key k : Key.values()) {
+            // Highest precedence first; the first valid value wins
+            String[][] candidates = {
+                    { system.getProperty(k.property), "system property " + k.property },
+                    { env.get(k.getEnvName()), "environment variable " + k.getEnvName() },
+                    { fromFile.getProperty(k.property), file + ": " + k.property },
+            };
+            String chosen = k.defaultValue;
+            for (String[] c : candidates) {
+                if (c[0] == null) continue;
+                String value = c[0].trim();
+                try {
+                    k.validate(value);
+                    chosen = value;
+                    break;
+                } catch (IllegalArgumentException e) {
+                    warnings.add("Ignoring invalid " + c[1] + "=" + value + " (" + e.getMessage() + ")");
+                }
+            }
+            values.put(k, chosen);
+        }
+        return new Settings(values);
+    }
+
+    /**
+     * A copy of these settings with the reloadable keys taken from 'loaded'.
+     */
+    public Settings withReloadable(Settings loaded) {
+        Map<Key, String> merged = new EnumMap<>(values);
+        for (Key k : Key.values()) {
+            if (k.reloadable) merged.put(k, loaded.values.get(k));
+        }
+        return new Settings(merged);
+    }
+
+    /**
+     * @return the keys whose value differs between this and 'other'.
+     */
+    public List<Key> changedKeys(Settings other) {
+        List<Key> changed = new ArrayList<>();
+        for (Key k : Key.values()) {
+            if (!values.get(k).equals(other.values.get(k))) changed.add(k);
+        }
+        return changed;
+    }
+
+    public String get(Key key) { return values.get(key); }
+
+    public Path getDataFolder() { return dataFolder; }
+    public Path getBackupFolder() { return backupFolder; }
+    public int getMaxCreditsPerSemester() { return maxCreditsPerSemester; }
+    public double getDeansListMinGpa() { return deansListMinGpa; }
+    public int getImportParallelism() { return importParallelism; }
+    public long getParallelImportMinBytes() { return parallelImportMinBytes; }
+    public int getQueryParallelMinRows() { return queryParallelMinRows; }
+    public long getJournalCompactBytes() { return journalCompactBytes; }
+    public long getJournalGroupCommitMillis() { return journalGroupCommitMillis; }
+    public int getBackupKeepCount() { return backupKeepCount; }
+    public Duration getBackupMaxAge() { return backupMaxAge; }
+    public int getBackupScanParallelism() { return backupScanParallelism; }
+    public Duration getAutosaveInterval() { return autosaveInterval; }
+    public Duration getBackupInterval() { return backupInterval; }
+}
@@ -0,0 +1,85 @@
+package edu.ccrm.domain;
+
+/**
+ * Immutable running totals for one student: enrolled credits, graded credits and
+ * grade points (point value x credits), broken down per semester.
+ * A new record is produced on every change, so readers never see a half-applied update.
+ */
+public final class AcademicRecord {
+
+    public static final AcademicRecord EMPTY = new AcademicRecord(
+            new int[Semester.values().length], new int[Semester.values().length], new int[Semester.values().length]);
+
+    // Indexed by Semester.ordinal()
+    private final int[] enrolledCredits;
+    private final int[] gradedCredits;
+    private final int[] gradePoints;
+
+    private AcademicRecord(int[] enrolledCredits, int[] gradedCredits, int[] gradePoints) {
+        this.enrolledCredits = enrolledCredits;
+        this.gradedCredits = gradedCredits;
+        this.gradePoints = gradePoints;
+    }
+
+    // --- Derived values ---
+
+    public int getEnrolledCredits(Semester sem) { return enrolledCredits[sem.ordinal()]; }
+    public int getGradedCredits(Semester sem) { return gradedCredits[sem.ordinal()]; }
+    public int getGradePoints(Semester sem) { return gradePoints[sem.ordinal()]; }
+
+    public int getGradedCredits() { return sum(gradedCredits); }
+    public int getGradePoints() { return sum(gradePoints); }
+
+    public double getGpa() {
+        int credits = getGradedCredits();
+        return credits > 0 ? (double) getGradePoints() / credits : 0.0;
+    }
+
+    public double getGpa(Semester sem) {
+        int credits = getGradedCredits(sem);
+        return credits > 0 ? (double) getGradePoints(sem) / credits : 0.0;
+    }
+
+    // --- Copy-on-write updates ---
+
+    AcademicRecord withEnrollment(Semester sem, int credits, Grade grade) {
+        int[] enrolled = enrolledCredits.clone();
+        enrolled[sem.ordinal()] += credits;
+        AcademicRecord r = new AcademicRecord(enrolled, gradedCredits, gradePoints);
+        return grade == null ? r : r.withGradeChange(sem, credits, null, grade);
+    }
+
+    // Takes an enrollment (and its grade, if any) back out of the totals
+    AcademicRecord withoutEnrollment(Semester sem, int credits, Grade grade) {
+        AcademicRecord r = withGradeChange(sem, credits, grade, null);
+        int[] enrolled = r.enrolledCredits.clone();
+        enrolled[sem.ordinal()] -= credits;
+        return new AcademicRecord(enrolled, r.gradedCredits, r.gradePoints);
+    }
+
+    /**
+     * Replaces the contribution of 'oldGrade' with 'newGrade' for a course of the given credits.
+     * Either grade may be null (ungraded).
+     */
+    AcademicRecord withGradeChange(Semester sem, int credits, Grade oldGrade, Grade newGrade) {
+        if (oldGrade == newGrade) return this;
+        int[] graded = gradedCredits.clone();
+        int[] points = gradePoints.clone();
+        int i = sem.ordinal();
+        if (oldGrade != null) {
+            graded[i] -= credits;
+            points[i] -= oldGrade.getPointValue() * credits;
+        }
+        if (newGrade != null) {
+            graded[i] += credits;
+            points[i] += newGrade.getPointValue() * credits;
+        }
+        return new AcademicRecord(enrolledCredits, graded, points);
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values) total += v;
+        return total;
+    }
+}
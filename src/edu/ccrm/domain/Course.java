@@ -4,16 +4,25 @@ package edu.ccrm.domain;
 // import static edu.ccrm.util.Validator.validateCredits; // Example utility import
 
 public class Course {
+
+    /** Capacity of a course with no seat limit. */
+    public static final int UNLIMITED = 0;
+    /** Largest course id; ids index arrays, so ids read from files are bounded. */
+    public static final int MAX_ID = 1_000_000;
     
     // Mandatory Immutability Principle: Core identity fields are FINAL
     private final String code;
     private final String title;
     private final int credits;
     
+    // Stable surrogate key (persisted); 0 until the registry assigns one
+    private volatile int id;
+
     // Mutable fields (can be changed after creation, e.g., assignment)
     private Instructor instructor;
     private String department; // Added department field from functional requirements
     private Semester semester;   // Added semester field from functional requirements
+    private volatile int capacity; // Seats per semester, or UNLIMITED; read by concurrent enrollments
 
     /**
      * Private constructor used only by the static Builder.
@@ -21,12 +30,14 @@ public class Course {
      */
     private Course(Builder builder) {
         // Encapsulation and Final Assignment
+        this.id = builder.id;
         this.code = builder.code;
         this.title = builder.title;
         this.credits = builder.credits;
         this.instructor = builder.instructor;
         this.department = builder.department;
         this.semester = builder.semester;
+        this.capacity = builder.capacity;
         
         // Assertion Example (Must be enabled via -ea flag at runtime)
         assert this.credits >= 1 && this.credits <= 6 : "Assertion Failed: Course credits are out of bounds (1-6).";
@@ -44,6 +55,8 @@ public class Course {
         private Instructor instructor = null;
         private String department = "N/A";
         private Semester semester = null;
+        private int capacity = UNLIMITED;
+        private int id = 0; // assigned on registration unless loaded from a file
         
         /**
          * Constructor for mandatory fields.
@@ -74,6 +87,22 @@ public class Course {
             return this;
         }
 
+        /**
+         * Seats per semester (UNLIMITED = no limit).
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * A previously assigned id (e.g. read from a file); leave unset for new courses.
+         */
+        public Builder id(int id) {
+            this.id = id;
+            return this;
+        }
+
         /**
          * Builds and returns the immutable Course object.
          */
@@ -82,20 +111,38 @@ public class Course {
             if (this.credits < 1 || this.credits > 6) {
                  throw new IllegalArgumentException("Credits must be between 1 and 6.");
             }
+            if (this.id < 0 || this.id > MAX_ID) {
+                throw new IllegalArgumentException("Course ID must be between 1 and " + MAX_ID + ", or 0 (unassigned).");
+            }
+            if (this.capacity < 0) {
+                throw new IllegalArgumentException("Capacity cannot be negative.");
+            }
             return new Course(this);
         }
     }
 
     // --- Getters (Encapsulation) ---
+    public int getId() { return id; }
     public String getCode() { return code; }
     public String getTitle() { return title; }
     public int getCredits() { return credits; }
     public Instructor getInstructor() { return instructor; }
     public String getDepartment() { return department; }
     public Semester getSemester() { return semester; }
+    public int getCapacity() { return capacity; }
+    public boolean hasCapacityLimit() { return capacity != UNLIMITED; }
 
 
     // --- Setters (Only for mutable fields) ---
+    /**
+     * Sets the id of a course built without one (done by the registry on registration).
+     */
+    public void assignId(int id) {
+        if (id <= 0 || id > MAX_ID) throw new IllegalArgumentException("Course ID must be between 1 and " + MAX_ID + ".");
+        if (this.id != 0) throw new IllegalStateException("Course already has id " + this.id + ".");
+        this.id = id;
+    }
+
     public void setInstructor(Instructor instructor) { 
         this.instructor = instructor; 
     }
@@ -105,6 +152,11 @@ public class Course {
     public void setSemester(Semester semester) { 
         this.semester = semester; 
     }
+    // Use CCRMService.setCourseCapacity, which also promotes waitlisted students
+    public void setCapacity(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.capacity = capacity;
+    }
 
 
     // --- Mandatory toString() Override ---
@@ -113,9 +165,10 @@ public class Course {
         // Overriding method demonstration
         String instructorName = (instructor != null ? instructor.getFullName() : "Unassigned");
         String semesterInfo = (semester != null ? ", Semester: " + semester.name() : "");
+        String capacityInfo = (hasCapacityLimit() ? " | Seats: " + capacity : "");
         
-        return String.format("%s - %s | Dept: %s | Credits: %d | Instructor: %s%s",
-                             code, title, department, credits, instructorName, semesterInfo);
+        return String.format("%s - %s | Dept: %s | Credits: %d | Instructor: %s%s%s",
+                             code, title, department, credits, instructorName, semesterInfo, capacityInfo);
     }
     
     // Mandatory: Overriding hashCode() and equals() is good practice for domain objects
@@ -4,24 +4,41 @@ import java.time.LocalDate;
 import java.util.Objects; // Mandatory import for hashCode/equals
 
 public class Enrollment {
-    // Fields passed in the constructor should be final for immutability principles
-    private final Student student;
+    // Fields passed in the constructor should be final for immutability principles;
+    // the student only moves to the Student object that replaces it (same id, see moveTo)
+    private volatile Student student;
     private final Course course;
     private final Semester semester;
     private final LocalDate enrollmentDate; // Automatically generated field made final
 
-    // Grade is mutable (can be set later)
-    private Grade grade; 
+    // Grade is mutable (can be set later); volatile so concurrent readers see the latest value
+    private volatile Grade grade; 
+
+    // Set once the student's running totals include this enrollment
+    private boolean tracked;
+
+    // Assigned once when the service stores the enrollment (0 until then); never reused
+    private int id;
+
+    // Dropped enrollments stay in the service's list as tombstones, so ids never shift
+    private volatile boolean dropped;
 
     public Enrollment(Student student, Course course, Semester semester) {
+        this(student, course, semester, LocalDate.now()); // Java Date/Time API
+    }
+
+    /**
+     * Creates an enrollment with an explicit date (bulk imports resolve "today" once per file).
+     */
+    public Enrollment(Student student, Course course, Semester semester, LocalDate enrollmentDate) {
         // Essential check to ensure data integrity
-        if (student == null || course == null || semester == null) {
+        if (student == null || course == null || semester == null || enrollmentDate == null) {
             throw new IllegalArgumentException("Enrollment must have a valid student, course, and semester.");
         }
         this.student = student;
         this.course = course;
         this.semester = semester;
-        this.enrollmentDate = LocalDate.now(); // Java Date/Time API
+        this.enrollmentDate = enrollmentDate;
     }
 
     // --- Getters (Encapsulation) ---
@@ -30,12 +47,34 @@ public class Enrollment {
     public Semester getSemester() { return semester; }
     public LocalDate getEnrollmentDate() { return enrollmentDate; }
     public Grade getGrade() { return grade; }
+    public int getId() { return id; }
+    public boolean isDropped() { return dropped; }
 
     // --- Setters ---
     public void setGrade(Grade grade) {
+        Grade oldGrade = this.grade;
         this.grade = grade;
+        if (tracked) student.onGradeChanged(this, oldGrade, grade);
     }
 
+    /**
+     * Sets the id under which the service stores this enrollment.
+     * @throws IllegalStateException if it already has one.
+     */
+    public void assignId(int id) {
+        if (this.id != 0) throw new IllegalStateException("Enrollment already has id " + this.id + ".");
+        this.id = id;
+    }
+
+    public void markDropped() { this.dropped = true; }
+
+    // Called by Student.adoptEnrollment; the new student must have the same id (equals/hashCode are unchanged)
+    void moveTo(Student student) { this.student = student; }
+
+    boolean isTracked() { return tracked; }
+    void markTracked() { this.tracked = true; }
+    void markUntracked() { this.tracked = false; }
+
     // --- Mandatory Overrides for Equality (Best Practice) ---
     
     /**
@@ -65,6 +104,7 @@ public class Enrollment {
     @Override
     public String toString() {
         // Detailed toString() for transcript/listing view
+        Grade grade = getGrade(); // subclasses may keep the grade elsewhere
         String gradeDisplay = (grade != null ? grade.name() + " (" + grade.getPointValue() + " points)" : "N/A");
         
         return String.format("%s - %s | %s | Enrolled: %s | Grade: %s",
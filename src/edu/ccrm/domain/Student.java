@@ -1,14 +1,18 @@
 package edu.ccrm.domain;
 
-import java.util.ArrayList;
 import java.util.Collections; // For unmodifiable list
 import java.util.List;
 import java.util.Objects; // For generating equals/hashCode
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Student extends Person {
     
     // Encapsulation: Internal list is private
-    private final List<Course> enrolledCourses = new ArrayList<>(); 
+    // Copy-on-write so the unmodifiable view can be read while another thread enrolls
+    private final List<Course> enrolledCourses = new CopyOnWriteArrayList<>(); 
+
+    // Running GPA/credit totals, replaced (not mutated) on every change
+    private volatile AcademicRecord record = AcademicRecord.EMPTY;
 
     public Student(int id, String fullName, String email) {
         // Inheritance: Calls the Person base class constructor
@@ -32,14 +36,62 @@ public class Student extends Person {
         return Collections.unmodifiableList(enrolledCourses);
     }
 
+    public AcademicRecord getRecord() { return record; }
+    public double getGpa() { return record.getGpa(); }
+    public double getGpa(Semester sem) { return record.getGpa(sem); }
+
     // --- Mutator ---
 
-    public void enrollCourse(Course course) {
+    public synchronized void enrollCourse(Course course) {
         // Basic check for business logic protection
         if (course != null && !enrolledCourses.contains(course)) {
             enrolledCourses.add(course);
         }
     }
+
+    public synchronized void dropCourse(Course course) {
+        enrolledCourses.remove(course);
+    }
+
+    /**
+     * Adds an enrollment to this student's running totals (credits, and grade points if already graded).
+     * From then on, grade changes on the enrollment adjust the totals automatically.
+     */
+    public synchronized void recordEnrollment(Enrollment e) {
+        if (e.getStudent() != this || e.isTracked()) return;
+        enrollCourse(e.getCourse());
+        record = record.withEnrollment(e.getSemester(), e.getCourse().getCredits(), e.getGrade());
+        e.markTracked();
+    }
+
+    /**
+     * Takes a dropped enrollment back out of the running totals; later grade changes on it
+     * no longer count. The course stays in getEnrolledCourses (see dropCourse).
+     */
+    public synchronized void recordDrop(Enrollment e) {
+        if (e.getStudent() != this || !e.isTracked()) return;
+        record = record.withoutEnrollment(e.getSemester(), e.getCourse().getCredits(), e.getGrade());
+        e.markUntracked();
+    }
+
+    /**
+     * Moves an enrollment of the student this one replaces (same id, e.g. re-imported with new
+     * details) over to this student, along with its credits and grade points.
+     */
+    public synchronized void adoptEnrollment(Enrollment e) {
+        Student previous = e.getStudent();
+        if (previous == this || previous.getId() != getId()) return;
+        boolean tracked = e.isTracked();
+        if (tracked) previous.recordDrop(e);
+        e.moveTo(this);
+        if (tracked) recordEnrollment(e);
+        else enrollCourse(e.getCourse()); // a dropped course stays listed, as after recordDrop
+    }
+
+    // Called by Enrollment.setGrade so an overwritten grade is subtracted before the new one is added
+    synchronized void onGradeChanged(Enrollment e, Grade oldGrade, Grade newGrade) {
+        record = record.withGradeChange(e.getSemester(), e.getCourse().getCredits(), oldGrade, newGrade);
+    }
     
     // --- Mandatory Overrides for Collections/Uniqueness ---
     
@@ -0,0 +1,17 @@
+package edu.ccrm.exceptions;
+
+/**
+ * Custom checked exception thrown when a course has no seat left for the semester.
+ * The student has been put on the course's waitlist instead.
+ */
+public class CourseFullException extends Exception {
+    private final int waitlistPosition;
+
+    public CourseFullException(String message, int waitlistPosition) {
+        super(message);
+        this.waitlistPosition = waitlistPosition;
+    }
+
+    /** 1-based position on the waitlist. */
+    public int getWaitlistPosition() { return waitlistPosition; }
+}
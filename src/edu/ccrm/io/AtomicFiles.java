@@ -0,0 +1,46 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Write-to-temp-then-move helpers shared by the CSV writer and the snapshot writer.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() { }
+
+    /**
+     * Creates a temp file next to the target (same file system, so the final move can be atomic).
+     * Temp files are created owner-only; the target's permissions (or the usual rw-r--r--) are applied.
+     */
+    static Path createTempFor(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+
+        PosixFileAttributeView posix = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        if (posix != null) {
+            posix.setPermissions(Files.exists(target)
+                    ? Files.getPosixFilePermissions(target)
+                    : PosixFilePermissions.fromString("rw-r--r--"));
+        }
+        return temp;
+    }
+
+    /**
+     * Moves the fully written temp file over the target, atomically where the file system allows it.
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
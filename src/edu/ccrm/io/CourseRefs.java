@@ -0,0 +1,64 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+
+import java.util.Map;
+
+/**
+ * Resolves the course column of an enrollment row. Files that start with HEADER hold course
+ * ids; files written before courses had ids have no header and hold course codes, which may
+ * themselves be numeric (e.g. "101"), so they are only ever looked up as codes.
+ */
+final class CourseRefs {
+
+    static final String HEADER = "studentId,courseId,semester,grade";
+
+    private final Map<String, Course> byCode;
+    private final Course[] byId;
+
+    /**
+     * @param byCode courses by upper-cased code (e.g. Registry.courseCodeIndex()); their ids
+     *               are indexed once here.
+     */
+    CourseRefs(Map<String, Course> byCode) {
+        this.byCode = byCode;
+        int max = 0;
+        for (Course c : byCode.values()) max = Math.max(max, c.getId());
+        this.byId = new Course[max + 1];
+        for (Course c : byCode.values()) {
+            if (c.getId() > 0) byId[c.getId()] = c;
+        }
+    }
+
+    Course byId(int id) {
+        return id > 0 && id < byId.length ? byId[id] : null;
+    }
+
+    Course byCode(String upperCode) {
+        return byCode.get(upperCode);
+    }
+
+    /**
+     * @param ref a course id (id-format files only), or an (upper-cased) course code.
+     */
+    Course resolve(String ref, boolean ids) {
+        if (ids && isDigits(ref) && ref.length() <= 9) return byId(Integer.parseInt(ref));
+        return byCode.get(ref);
+    }
+
+    /**
+     * True if the first two fields of a file's first record are those of HEADER.
+     */
+    static boolean isHeader(String first, String second) {
+        return first.trim().equalsIgnoreCase("studentId") && second.trim().equalsIgnoreCase("courseId");
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,291 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming CSV tokenizer (RFC 4180) that parses records straight from a Reader.
+ *
+ * Field characters are copied into one reusable buffer and addressed by offsets, so no
+ * arrays or strings are created per row: ints are parsed from the buffer and enum values
+ * are matched against their names in place. Strings are only built when asked for.
+ *
+ * Supports quoted fields with embedded commas, line breaks and doubled quotes ("").
+ * Unquoted fields are trimmed; blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    // Current record: field characters plus [start, end) offsets per field
+    private char[] rec = new char[256];
+    private int recLen;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+
+    private long line = 1;       // line the reader is currently on
+    private long recordLine;     // line the current record started on
+    private String error;        // structural problem in the current record, if any
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Advances to the next non-blank record.
+     * @return false at end of input.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (!ensure()) return false;
+            readRecord();
+            // A lone empty, unquoted field is a blank line
+            if (fieldCount == 1 && starts[0] == ends[0] && error == null) continue;
+            return true;
+        }
+    }
+
+    private void readRecord() throws IOException {
+        fieldCount = 0;
+        recLen = 0;
+        error = null;
+        recordLine = line;
+
+        while (true) {
+            int start = recLen;
+            boolean quoted = false;
+            int c = peek();
+
+            // Leading blanks before an opening quote are ignored
+            while (c == ' ' || c == '\t') {
+                append((char) c);
+                pos++;
+                c = peek();
+            }
+            if (c == '"') {
+                quoted = true;
+                recLen = start;
+                pos++;
+                readQuoted();
+                c = peek();
+                // Only blanks are allowed between the closing quote and the delimiter
+                while (c != -1 && c != ',' && c != '\n' && c != '\r') {
+                    if (c != ' ' && c != '\t' && error == null) error = "unexpected character after closing quote";
+                    pos++;
+                    c = peek();
+                }
+            } else {
+                while (c != -1 && c != ',' && c != '\n' && c != '\r') {
+                    append((char) c);
+                    pos++;
+                    c = peek();
+                }
+            }
+
+            int end = recLen;
+            if (!quoted) {
+                while (start < end && isBlank(rec[start])) start++;
+                while (end > start && isBlank(rec[end - 1])) end--;
+            }
+            addField(start, end);
+
+            if (c == ',') {
+                pos++;
+                continue;
+            }
+            if (c == '\r') {
+                pos++;
+                if (peek() == '\n') pos++;
+                line++;
+            } else if (c == '\n') {
+                pos++;
+                line++;
+            }
+            return;
+        }
+    }
+
+    private void readQuoted() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                error = "unterminated quoted field";
+                return;
+            }
+            pos++;
+            if (c == '"') {
+                if (peek() == '"') {
+                    append('"');
+                    pos++;
+                    continue;
+                }
+                return;
+            }
+            if (c == '\n') line++;
+            append((char) c);
+        }
+    }
+
+    // --- Buffer handling ---
+
+    private boolean ensure() throws IOException {
+        if (pos < limit) return true;
+        if (eof) return false;
+        limit = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (limit <= 0) {
+            limit = 0;
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    private int peek() throws IOException {
+        return ensure() ? buf[pos] : -1;
+    }
+
+    private void append(char c) {
+        if (recLen == rec.length) {
+            char[] grown = new char[rec.length * 2];
+            System.arraycopy(rec, 0, grown, 0, recLen);
+            rec = grown;
+        }
+        rec[recLen++] = c;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            int[] s = new int[starts.length * 2];
+            int[] e = new int[ends.length * 2];
+            System.arraycopy(starts, 0, s, 0, fieldCount);
+            System.arraycopy(ends, 0, e, 0, fieldCount);
+            starts = s;
+            ends = e;
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    // --- Accessors for the current record ---
+
+    public int fieldCount() { return fieldCount; }
+
+    /**
+     * @return the 1-based line number on which the current record starts.
+     */
+    public long lineNumber() { return recordLine; }
+
+    /**
+     * @return a description of a structural problem (e.g. unterminated quote) in the current record, or null.
+     */
+    public String error() { return error; }
+
+    public boolean isEmpty(int field) {
+        checkField(field);
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * True if the field is 1-9 plain digits, i.e. a non-negative int getInt can't fail on.
+     */
+    public boolean isDigits(int field) {
+        checkField(field);
+        int start = starts[field];
+        int end = ends[field];
+        if (start == end || end - start > 9) return false;
+        for (int i = start; i < end; i++) {
+            if (rec[i] < '0' || rec[i] > '9') return false;
+        }
+        return true;
+    }
+
+    public String getString(int field) {
+        checkField(field);
+        return new String(rec, starts[field], ends[field] - starts[field]);
+    }
+
+    /**
+     * Parses a decimal int directly from the record buffer.
+     */
+    public int getInt(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        if (i == end) throw new NumberFormatException("empty field " + (field + 1));
+
+        boolean negative = rec[i] == '-';
+        if (negative || rec[i] == '+') i++;
+        if (i == end) throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+
+        long value = 0;
+        for (; i < end; i++) {
+            int d = rec[i] - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE + 1L) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+        return (int) value;
+    }
+
+    /**
+     * Matches the field against the enum constant names (ASCII case-insensitive) without allocating.
+     * @return the matching constant, or null if the field is empty.
+     * @throws IllegalArgumentException if the field names no constant.
+     */
+    public <E extends Enum<E>> E getEnum(int field, E[] values) {
+        checkField(field);
+        int start = starts[field];
+        int len = ends[field] - start;
+        if (len == 0) return null;
+
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() != len) continue;
+            boolean match = true;
+            for (int k = 0; k < len && match; k++) {
+                match = Character.toUpperCase(rec[start + k]) == name.charAt(k);
+            }
+            if (match) return value;
+        }
+        throw new IllegalArgumentException("Unknown value \"" + getString(field) + "\"");
+    }
+
+    /**
+     * Rebuilds the current record as text, for error reports.
+     */
+    public String recordText() {
+        StringBuilder sb = new StringBuilder();
+        for (int f = 0; f < fieldCount; f++) {
+            if (f > 0) sb.append(',');
+            sb.append(rec, starts[f], ends[f] - starts[f]);
+        }
+        return sb.toString();
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Record on line " + recordLine + " has no field " + (field + 1));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,127 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming CSV writer that never materializes the whole file in memory.
+ *
+ * Rows are written field by field through one buffered writer (ints via a reusable digit
+ * buffer, text quoted per RFC 4180 only when needed). Output goes to a temp file next to
+ * the target, which is fsynced and then atomically moved into place on commit(), so a
+ * crash or error mid-export never leaves a half-written file behind.
+ */
+public class CsvWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final GZIPOutputStream gzip;
+    private final BufferedWriter out;
+    private final char[] digits = new char[11];
+    private boolean rowStarted;
+    private boolean committed;
+
+    /**
+     * @param gzip whether to gzip-compress the output.
+     */
+    public CsvWriter(Path target, boolean gzip) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.temp = AtomicFiles.createTempFor(this.target);
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        OutputStream stream = Channels.newOutputStream(channel);
+        this.gzip = gzip ? new GZIPOutputStream(stream, BUFFER_SIZE) : null;
+        this.out = new BufferedWriter(new OutputStreamWriter(gzip ? this.gzip : stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null) return this;
+
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.write(value);
+            return this;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(int value) throws IOException {
+        separator();
+        // Format into the reusable buffer instead of allocating a String per number
+        int pos = digits.length;
+        long v = value;
+        boolean negative = v < 0;
+        if (negative) v = -v;
+        do {
+            digits[--pos] = (char) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (negative) digits[--pos] = '-';
+        out.write(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public CsvWriter field(Enum<?> value) throws IOException {
+        return field(value == null ? null : value.name());
+    }
+
+    public void endRow() throws IOException {
+        out.write('\n');
+        rowStarted = false;
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) out.write(',');
+        rowStarted = true;
+    }
+
+    /**
+     * Flushes, fsyncs and atomically replaces the target with the written data.
+     */
+    public void commit() throws IOException {
+        out.flush();
+        if (gzip != null) gzip.finish();
+        channel.force(true);
+        out.close();
+        AtomicFiles.replace(temp, target);
+        committed = true;
+    }
+
+    /**
+     * Closes the writer; without a prior commit() the temp file is discarded and the target is untouched.
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
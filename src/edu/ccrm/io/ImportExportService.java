@@ -1,131 +1,307 @@
 package edu.ccrm.io;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Op;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentStore;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors; 
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 public class ImportExportService {
 
+    /** First line of enrollment files whose course column holds course ids. */
+    public static final String ENROLLMENTS_HEADER = CourseRefs.HEADER;
+
+    // Cached once: values() clones the array on every call
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    // Files ending in .gz are read and written gzip-compressed
+    public static boolean isGzip(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    private static CsvReader openCsv(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (isGzip(path)) in = new GZIPInputStream(in, 1 << 16);
+        return new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
     // ---------------- Students ----------------
     public static List<Student> importStudents(Path path) throws IOException {
-        try (var lines = Files.lines(path)) {
-            return lines
-                    .filter(line -> !line.trim().isEmpty())
-                    .map(line -> {
-                        try {
-                            String[] parts = line.split(",");
-                            int id = Integer.parseInt(parts[0].trim());
-                            String name = parts[1].trim();
-                            String email = parts[2].trim();
-                            return new Student(id, name, email); 
-                        } catch (Exception e) {
-                            System.err.println("Skipping invalid student record: " + line);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull) 
-                    .toList(); 
+        return importStudents(path, new ImportReport(path.toString()));
+    }
+
+    /**
+     * Reads students (id,fullName,email). Malformed rows are skipped and recorded in the report.
+     */
+    public static List<Student> importStudents(Path path, ImportReport report) throws IOException {
+        return Metrics.time(Op.IMPORT_STUDENTS, () -> readStudents(path, report));
+    }
+
+    private static List<Student> readStudents(Path path, ImportReport report) throws IOException {
+        List<Student> result = new ArrayList<>();
+        try (CsvReader csv = openCsv(path)) {
+            while (csv.next()) {
+                report.rowRead();
+                try {
+                    if (csv.error() != null) throw new IllegalArgumentException(csv.error());
+                    int id = csv.getInt(0);
+                    result.add(new Student(id, csv.getString(1), csv.getString(2)));
+                    report.rowImported();
+                } catch (RuntimeException e) {
+                    report.problem(csv.lineNumber(), "invalid student record [" + csv.recordText() + "]: " + e.getMessage());
+                }
+            }
         }
+        return result;
     }
 
-    public static void exportStudents(List<Student> students, Path path) throws IOException {
-        List<String> lines = students.stream()
-                .map(s -> s.getId() + "," + s.getFullName() + "," + s.getEmail())
-                .toList(); 
-        
-        Files.write(path, lines);
+    public static void exportStudents(Iterable<Student> students, Path path) throws IOException {
+        exportStudents(students, path, isGzip(path));
     }
 
-    // ---------------- Courses (CRITICAL FIX APPLIED HERE) ----------------
+    /**
+     * Streams students to the file (atomically replaced when complete).
+     */
+    public static void exportStudents(Iterable<Student> students, Path path, boolean gzip) throws IOException {
+        Metrics.time(Op.EXPORT_STUDENTS, () -> {
+            writeStudents(students, path, gzip);
+            return null;
+        });
+    }
+
+    private static void writeStudents(Iterable<Student> students, Path path, boolean gzip) throws IOException {
+        try (CsvWriter out = new CsvWriter(path, gzip)) {
+            for (Student s : students) {
+                out.field(s.getId()).field(s.getFullName()).field(s.getEmail()).endRow();
+            }
+            out.commit();
+        }
+    }
+
+    // ---------------- Courses ----------------
     public static List<Course> importCourses(Path path) throws IOException {
-        try (var lines = Files.lines(path)) {
-            return lines
-                    .filter(line -> !line.trim().isEmpty())
-                    .map(line -> {
-                        try {
-                            String[] parts = line.split(",");
-                            String code = parts[0].trim();
-                            String title = parts[1].trim();
-                            int credits = Integer.parseInt(parts[2].trim()); 
-                            
-                            // CRITICAL FIX: Use the Course.Builder to resolve constructor error
-                            return new Course.Builder(code, title)
-                                    .credits(credits)
-                                    .build();
-                            
-                        } catch (Exception e) {
-                             System.err.println("Skipping invalid course record: " + line);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .toList(); // Fixed incompatible types error by ensuring the Stream content is Course
+        return importCourses(path, new ImportReport(path.toString()));
+    }
+
+    /**
+     * Reads courses (code,title,credits[,capacity[,id]]). Titles may be quoted and contain commas;
+     * an empty or missing capacity means no seat limit. Courses without an id (files written
+     * before courses had ids) are given one when registered.
+     */
+    public static List<Course> importCourses(Path path, ImportReport report) throws IOException {
+        return Metrics.time(Op.IMPORT_COURSES, () -> readCourses(path, report));
+    }
+
+    private static List<Course> readCourses(Path path, ImportReport report) throws IOException {
+        List<Course> result = new ArrayList<>();
+        try (CsvReader csv = openCsv(path)) {
+            while (csv.next()) {
+                report.rowRead();
+                try {
+                    if (csv.error() != null) throw new IllegalArgumentException(csv.error());
+                    // Use the Course.Builder (validates the credit range)
+                    Course.Builder b = new Course.Builder(csv.getString(0), csv.getString(1))
+                            .credits(csv.getInt(2));
+                    if (csv.fieldCount() > 3 && !csv.isEmpty(3)) b.capacity(csv.getInt(3));
+                    if (csv.fieldCount() > 4 && !csv.isEmpty(4)) b.id(csv.getInt(4));
+                    result.add(b.build());
+                    report.rowImported();
+                } catch (RuntimeException e) {
+                    report.problem(csv.lineNumber(), "invalid course record [" + csv.recordText() + "]: " + e.getMessage());
+                }
+            }
         }
+        return result;
     }
 
-    public static void exportCourses(List<Course> courses, Path path) throws IOException {
-        List<String> lines = courses.stream()
-                .map(c -> c.getCode() + "," + c.getTitle() + "," + c.getCredits())
-                .toList();
+    public static void exportCourses(Iterable<Course> courses, Path path) throws IOException {
+        exportCourses(courses, path, isGzip(path));
+    }
 
-        Files.write(path, lines);
+    public static void exportCourses(Iterable<Course> courses, Path path, boolean gzip) throws IOException {
+        Metrics.time(Op.EXPORT_COURSES, () -> {
+            writeCourses(courses, path, gzip);
+            return null;
+        });
+    }
+
+    private static void writeCourses(Iterable<Course> courses, Path path, boolean gzip) throws IOException {
+        try (CsvWriter out = new CsvWriter(path, gzip)) {
+            for (Course c : courses) {
+                out.field(c.getCode()).field(c.getTitle()).field(c.getCredits())
+                   .field(c.hasCapacityLimit() ? Integer.toString(c.getCapacity()) : null) // empty when unlimited
+                   .field(c.getId() > 0 ? Integer.toString(c.getId()) : null)
+                   .endRow();
+            }
+            out.commit();
+        }
     }
 
     // ---------------- Enrollments ----------------
-    public static void exportEnrollments(List<Enrollment> enrollments, Path path) throws IOException {
-        List<String> lines = enrollments.stream()
-                .map(e -> {
-                    String gradeStr = e.getGrade() != null ? e.getGrade().name() : "";
-                    return String.join(",",
-                            String.valueOf(e.getStudent().getId()),
-                            e.getCourse().getCode(),
-                            e.getSemester().name(),
-                            gradeStr
-                    );
-                })
-                .toList();
-
-        Files.write(path, lines);
+    public static void exportEnrollments(Iterable<Enrollment> enrollments, Path path) throws IOException {
+        exportEnrollments(enrollments, path, isGzip(path));
+    }
+
+    public static void exportEnrollments(Iterable<Enrollment> enrollments, Path path, boolean gzip) throws IOException {
+        Metrics.time(Op.EXPORT_ENROLLMENTS, () -> {
+            writeEnrollments(enrollments, path, gzip);
+            return null;
+        });
+    }
+
+    // The header marks the course column as ids (the code for a course that has none)
+    private static void writeEnrollments(Iterable<Enrollment> enrollments, Path path, boolean gzip) throws IOException {
+        try (CsvWriter out = new CsvWriter(path, gzip)) {
+            for (String column : ENROLLMENTS_HEADER.split(",")) out.field(column);
+            out.endRow();
+            for (Enrollment e : enrollments) {
+                Course c = e.getCourse();
+                out.field(e.getStudent().getId());
+                if (c.getId() > 0) out.field(c.getId());
+                else out.field(c.getCode());
+                out.field(e.getSemester())
+                   .field(e.getGrade()) // empty when ungraded
+                   .endRow();
+            }
+            out.commit();
+        }
     }
 
     public static List<Enrollment> importEnrollments(Path path, List<Student> students, List<Course> courses) throws IOException {
         Map<Integer, Student> studentMap = students.stream().collect(
-                Collectors.toMap(Student::getId, s -> s)); 
-        
+                Collectors.toMap(Student::getId, s -> s));
+
         Map<String, Course> courseMap = courses.stream().collect(
-                Collectors.toMap(Course::getCode, c -> c)); 
-        
-        try (var lines = Files.lines(path)) {
-            return lines
-                    .filter(line -> !line.trim().isEmpty())
-                    .map(line -> {
-                        try {
-                            String[] parts = line.split(",");
-                            if (parts.length < 3) return null;
-                            
-                            int sId = Integer.parseInt(parts[0].trim());
-                            String cCode = parts[1].trim();
-                            Semester sem = Semester.valueOf(parts[2].trim());
-                            Grade grade = parts.length > 3 && !parts[3].trim().isEmpty() ? Grade.valueOf(parts[3].trim()) : null;
-
-                            Student s = studentMap.get(sId);
-                            Course c = courseMap.get(cCode);
-
-                            if (s != null && c != null) {
-                                Enrollment e = new Enrollment(s, c, sem);
-                                e.setGrade(grade);
-                                return e; 
-                            }
-                            return null;
-                        } catch (Exception e) {
-                            System.err.println("Skipping invalid enrollment record: " + line + ". Error: " + e.getMessage());
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .toList();
+                Collectors.toMap(c -> c.getCode().toUpperCase(), c -> c, (a, b) -> a));
+
+        return importEnrollments(path, studentMap, courseMap);
+    }
+
+    public static List<Enrollment> importEnrollments(Path path, Map<Integer, Student> studentMap,
+                                                     Map<String, Course> courseMap) throws IOException {
+        return importEnrollments(path, studentMap, courseMap, new ImportReport(path.toString()));
+    }
+
+    /**
+     * Imports enrollments (studentId,course,semester[,grade]) resolving rows against prebuilt
+     * indexes (e.g. the service Registry), so no per-import map has to be rebuilt.
+     * The course is given by id in files starting with ENROLLMENTS_HEADER, by code in files
+     * written before courses had ids (no header).
+     * Course keys are expected upper-cased.
+     */
+    public static List<Enrollment> importEnrollments(Path path, Map<Integer, Student> studentMap,
+                                                     Map<String, Course> courseMap, ImportReport report) throws IOException {
+        return Metrics.time(Op.IMPORT_ENROLLMENTS, () -> readEnrollments(path, studentMap, courseMap, report));
+    }
+
+    private static List<Enrollment> readEnrollments(Path path, Map<Integer, Student> studentMap,
+                                                    Map<String, Course> courseMap, ImportReport report) throws IOException {
+        List<Enrollment> result = new ArrayList<>();
+        readEnrollmentRows(path, studentMap, courseMap, report, (s, c, sem, grade, date) -> {
+            Enrollment e = new Enrollment(s, c, sem, date);
+            e.setGrade(grade);
+            result.add(e);
+        });
+        return result;
+    }
+
+    /**
+     * Appends enrollment rows straight into 'store' without building Enrollment objects
+     * (e.g. a ColumnarEnrollmentStore for large histories). Rows are validated like
+     * importEnrollments, but not checked for duplicates.
+     * @return the number of rows appended.
+     */
+    public static int importEnrollments(Path path, EnrollmentStore store, Map<Integer, Student> studentMap,
+                                        Map<String, Course> courseMap, ImportReport report) throws IOException {
+        return Metrics.time(Op.IMPORT_ENROLLMENTS, () -> {
+            int before = store.size();
+            readEnrollmentRows(path, studentMap, courseMap, report,
+                    (s, c, sem, grade, date) -> store.add(s.getId(), c, sem, grade, date));
+            return store.size() - before;
+        });
+    }
+
+    private interface EnrollmentRowSink {
+        void row(Student s, Course c, Semester sem, Grade grade, LocalDate date);
+    }
+
+    private static void readEnrollmentRows(Path path, Map<Integer, Student> studentMap, Map<String, Course> courseMap,
+                                           ImportReport report, EnrollmentRowSink sink) throws IOException {
+        LocalDate today = LocalDate.now();
+        CourseRefs courses = new CourseRefs(courseMap);
+        boolean ids = false;
+        try (CsvReader csv = openCsv(path)) {
+            while (csv.next()) {
+                if (csv.lineNumber() == 1 && csv.error() == null && csv.fieldCount() >= 2
+                        && CourseRefs.isHeader(csv.getString(0), csv.getString(1))) {
+                    ids = true;
+                    continue;
+                }
+                report.rowRead();
+                try {
+                    if (csv.error() != null) throw new IllegalArgumentException(csv.error());
+                    if (csv.fieldCount() < 3) throw new IllegalArgumentException("expected at least 3 fields");
+
+                    int sId = csv.getInt(0);
+                    Semester sem = csv.getEnum(2, SEMESTERS);
+                    Grade grade = csv.fieldCount() > 3 ? csv.getEnum(3, GRADES) : null;
+                    if (sem == null) throw new IllegalArgumentException("missing semester");
+
+                    Student s = studentMap.get(sId);
+                    // A course id is read without building a string; anything else is a code.
+                    // toUpperCase returns the same instance when the code is already upper-case
+                    Course c = ids && csv.isDigits(1) ? courses.byId(csv.getInt(1))
+                            : courses.byCode(csv.getString(1).toUpperCase());
+                    if (s == null) throw new IllegalArgumentException("unknown student " + sId);
+                    if (c == null) throw new IllegalArgumentException("unknown course " + csv.getString(1));
+
+                    sink.row(s, c, sem, grade, today);
+                    report.rowImported();
+                } catch (RuntimeException e) {
+                    report.problem(csv.lineNumber(), "invalid enrollment record [" + csv.recordText() + "]: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ---------------- Enrollment requests (bulk registration) ----------------
+
+    public static List<EnrollmentRequest> importEnrollmentRequests(Path path) throws IOException {
+        return importEnrollmentRequests(path, new ImportReport(path.toString()));
+    }
+
+    /**
+     * Reads registration requests in the form: studentId,courseCode,semester
+     * Rows are not validated against existing data here; enrollBatch does that in one pass.
+     */
+    public static List<EnrollmentRequest> importEnrollmentRequests(Path path, ImportReport report) throws IOException {
+        return Metrics.time(Op.IMPORT_ENROLLMENT_REQUESTS, () -> readEnrollmentRequests(path, report));
+    }
+
+    private static List<EnrollmentRequest> readEnrollmentRequests(Path path, ImportReport report) throws IOException {
+        List<EnrollmentRequest> result = new ArrayList<>();
+        try (CsvReader csv = openCsv(path)) {
+            while (csv.next()) {
+                report.rowRead();
+                try {
+                    if (csv.error() != null) throw new IllegalArgumentException(csv.error());
+                    Semester sem = csv.getEnum(2, SEMESTERS);
+                    if (sem == null) throw new IllegalArgumentException("missing semester");
+                    result.add(new EnrollmentRequest(csv.getInt(0), csv.getString(1), sem));
+                    report.rowImported();
+                } catch (RuntimeException e) {
+                    report.problem(csv.lineNumber(), "invalid enrollment request [" + csv.recordText() + "]: " + e.getMessage());
+                }
+            }
         }
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package edu.ccrm.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the outcome of one import: rows read, rows imported and the malformed rows
+ * (with line numbers), so callers decide how to report them instead of the importer
+ * printing to System.err. Not thread-safe: use one report per importing thread.
+ */
+public class ImportReport {
+
+    // Keep memory bounded on badly broken files; the total is still counted
+    private static final int MAX_STORED_PROBLEMS = 1000;
+
+    public static final class Problem {
+        private final long line;
+        private final String message;
+
+        Problem(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    private final String source;
+    private long rowsRead;
+    private long rowsImported;
+    private long problemCount;
+    private final List<Problem> problems = new ArrayList<>();
+
+    public ImportReport(String source) {
+        this.source = source;
+    }
+
+    void rowRead() { rowsRead++; }
+    void rowImported() { rowsImported++; }
+
+    void problem(long line, String message) {
+        problemCount++;
+        if (problems.size() < MAX_STORED_PROBLEMS) problems.add(new Problem(line, message));
+    }
+
+    /**
+     * Folds a per-chunk report into this one. Chunk line numbers are relative to the
+     * chunk, so they are shifted by the number of lines that precede it in the file.
+     */
+    void merge(ImportReport chunk, long lineOffset) {
+        rowsRead += chunk.rowsRead;
+        rowsImported += chunk.rowsImported;
+        problemCount += chunk.problemCount;
+        for (Problem p : chunk.problems) {
+            if (problems.size() < MAX_STORED_PROBLEMS) problems.add(new Problem(p.line + lineOffset, p.message));
+        }
+    }
+
+    public String getSource() { return source; }
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsImported() { return rowsImported; }
+    public long getProblemCount() { return problemCount; }
+    public List<Problem> getProblems() { return Collections.unmodifiableList(problems); }
+    public boolean hasProblems() { return problemCount > 0; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows read, %d imported, %d skipped", source, rowsRead, rowsImported, problemCount);
+    }
+}
@@ -0,0 +1,424 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CCRMService;
+import edu.ccrm.service.ServiceListener;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of service mutations.
+ *
+ * Every mutation reported through ServiceListener is encoded as a small framed record
+ * ([int length][payload][int crc32]) and queued; a background writer appends queued
+ * records and fsyncs once per group (group commit). sync() waits until everything
+ * queued so far is durable, so saving costs in proportion to the changes.
+ *
+ * On startup the journal is replayed on top of the snapshot/CSV data. Compaction writes
+ * the full dataset elsewhere and then drops the journal: beginCompaction() rotates to a
+ * fresh segment, so mutations made while the dataset is being written are not lost, and
+ * finishCompaction() deletes the old segment. Replay is idempotent, so a crash between
+ * the two only means some records are replayed twice.
+ */
+public class Journal implements ServiceListener, Closeable {
+
+    // Record types; records name courses by id
+    private static final byte STUDENT_ADDED = 1;
+    private static final byte INSTRUCTOR_ADDED = 2;
+    private static final byte COURSE_ADDED = 3;
+    private static final byte ENROLLED = 4;
+    private static final byte GRADE_RECORDED = 5;
+    private static final byte INSTRUCTOR_ASSIGNED = 6;
+    private static final byte CAPACITY_CHANGED = 7;
+    private static final byte DROPPED = 8;
+
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    private final Path path;
+    private final Path oldSegment;
+    private final long groupCommitMillis;
+
+    private FileChannel channel;
+    private final Thread writer;
+
+    // Held by the writer from taking a batch until it is forced, and by rotation, so the
+    // segment is never closed or moved under a write. Taken before 'this', never after.
+    private final Object io = new Object();
+
+    // Guarded by 'this'
+    private List<byte[]> pending = new ArrayList<>();
+    private long enqueued;        // sequence of the last queued record
+    private long durable;         // sequence of the last fsynced record
+    private long pendingBytes;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) the journal for appending. Call replay() first if the journal
+     * may contain records from a previous run.
+     */
+    public Journal(Path path, long groupCommitMillis) throws IOException {
+        this.path = path;
+        this.oldSegment = path.resolveSibling(path.getFileName() + ".old");
+        this.groupCommitMillis = groupCommitMillis;
+        this.channel = openSegment(path);
+
+        this.writer = new Thread(this::writeLoop, "ccrm-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static FileChannel openSegment(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ch.position(ch.size());
+        return ch;
+    }
+
+    // ---------------- ServiceListener: encode and queue ----------------
+
+    @Override
+    public void studentAdded(Student s) {
+        append(STUDENT_ADDED, out -> {
+            out.writeInt(s.getId());
+            out.writeUTF(s.getFullName());
+            out.writeUTF(s.getEmail());
+        });
+    }
+
+    @Override
+    public void instructorAdded(Instructor i) {
+        append(INSTRUCTOR_ADDED, out -> {
+            out.writeInt(i.getId());
+            out.writeUTF(i.getFullName());
+            out.writeUTF(i.getEmail());
+            out.writeUTF(i.getDepartment() == null ? "" : i.getDepartment());
+        });
+    }
+
+    @Override
+    public void courseAdded(Course c) {
+        append(COURSE_ADDED, out -> {
+            out.writeInt(c.getId());
+            out.writeUTF(c.getCode());
+            out.writeUTF(c.getTitle());
+            out.writeByte(c.getCredits());
+        });
+    }
+
+    @Override
+    public void enrolled(Enrollment e) {
+        append(ENROLLED, out -> {
+            out.writeInt(e.getStudent().getId());
+            out.writeInt(e.getCourse().getId());
+            out.writeByte(e.getSemester().ordinal());
+            out.writeInt((int) e.getEnrollmentDate().toEpochDay());
+        });
+    }
+
+    @Override
+    public void gradeRecorded(Enrollment e, Grade grade) {
+        append(GRADE_RECORDED, out -> {
+            out.writeInt(e.getStudent().getId());
+            out.writeInt(e.getCourse().getId());
+            out.writeByte(e.getSemester().ordinal());
+            out.writeByte(grade == null ? -1 : grade.ordinal());
+        });
+    }
+
+    @Override
+    public void dropped(Enrollment e) {
+        append(DROPPED, out -> {
+            out.writeInt(e.getStudent().getId());
+            out.writeInt(e.getCourse().getId());
+            out.writeByte(e.getSemester().ordinal());
+        });
+    }
+
+    @Override
+    public void instructorAssigned(Course c, Instructor i) {
+        append(INSTRUCTOR_ASSIGNED, out -> {
+            out.writeInt(i.getId());
+            out.writeInt(c.getId());
+        });
+    }
+
+    @Override
+    public void capacityChanged(Course c, int capacity) {
+        append(CAPACITY_CHANGED, out -> {
+            out.writeInt(c.getId());
+            out.writeInt(capacity);
+        });
+    }
+
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(byte type, Payload payload) {
+        byte[] record;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length placeholder
+            out.writeByte(type);
+            payload.write(out);
+            out.writeInt(0); // crc placeholder
+            record = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream never fails
+        }
+
+        ByteBuffer frame = ByteBuffer.wrap(record);
+        int length = record.length - 8;
+        frame.putInt(0, length);
+        CRC32 crc = new CRC32();
+        crc.update(record, 4, length);
+        frame.putInt(record.length - 4, (int) crc.getValue());
+
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            pending.add(record);
+            pendingBytes += record.length;
+            enqueued++;
+            notifyAll();
+        }
+    }
+
+    // ---------------- Group commit ----------------
+
+    private void writeLoop() {
+        while (true) {
+            List<byte[]> batch;
+            long batchEnd;
+            FileChannel target;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) return; // closed and drained
+            }
+
+            // Let concurrent mutations pile up so they share one fsync
+            if (groupCommitMillis > 0) {
+                try {
+                    Thread.sleep(groupCommitMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            IOException error = null;
+            synchronized (io) {
+                synchronized (this) {
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    batchEnd = enqueued;
+                    target = channel;
+                }
+
+                try {
+                    ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                    for (int i = 0; i < buffers.length; i++) buffers[i] = ByteBuffer.wrap(batch.get(i));
+                    long remaining = 0;
+                    for (ByteBuffer b : buffers) remaining += b.remaining();
+                    while (remaining > 0) remaining -= target.write(buffers);
+                    target.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+
+            synchronized (this) {
+                if (error != null) failure = error;
+                else durable = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Blocks until every record queued before this call is on disk.
+     */
+    public synchronized void sync() throws IOException {
+        long target = enqueued;
+        while (durable < target && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for journal sync");
+            }
+        }
+        if (failure != null) throw new IOException("Journal write failed", failure);
+    }
+
+    /**
+     * @return the size of the journal (written plus queued), used to decide when to compact.
+     */
+    public synchronized long size() throws IOException {
+        long old = Files.exists(oldSegment) ? Files.size(oldSegment) : 0;
+        return old + channel.size() + pendingBytes;
+    }
+
+    // ---------------- Compaction ----------------
+
+    /**
+     * Rotates to a fresh segment. Call before writing the full dataset (CSV/snapshot).
+     */
+    public void beginCompaction() throws IOException {
+        sync();
+        // Records queued since sync() are written either before the rotation or after it
+        synchronized (io) {
+            synchronized (this) {
+                // A previous compaction that never finished still holds unsaved history; keep it
+                if (Files.exists(oldSegment)) {
+                    try (FileChannel old = FileChannel.open(oldSegment, StandardOpenOption.APPEND)) {
+                        channel.position(0);
+                        old.transferFrom(channel, old.size(), channel.size());
+                        old.force(false);
+                    }
+                    channel.close();
+                    Files.delete(path);
+                } else {
+                    channel.close();
+                    Files.move(path, oldSegment, StandardCopyOption.ATOMIC_MOVE);
+                }
+                channel = openSegment(path);
+            }
+        }
+    }
+
+    /**
+     * Drops the rotated segment once the full dataset has been written successfully.
+     */
+    public void finishCompaction() throws IOException {
+        Files.deleteIfExists(oldSegment);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            channel.close();
+        }
+        if (failure != null) throw new IOException("Journal write failed", failure);
+    }
+
+    // ---------------- Replay ----------------
+
+    /**
+     * Replays the journal (rotated segment first, then the current one) into the service.
+     * Must run before the journal is attached as a listener. A torn or corrupt tail (e.g.
+     * from a crash mid-write) ends replay of that segment and is truncated away.
+     *
+     * @return the number of records applied.
+     */
+    public static int replay(Path path, CCRMService service) throws IOException {
+        Path old = path.resolveSibling(path.getFileName() + ".old");
+        int applied = 0;
+        if (Files.exists(old)) applied += replaySegment(old, service);
+        if (Files.exists(path)) applied += replaySegment(path, service);
+        return applied;
+    }
+
+    private static int replaySegment(Path segment, CCRMService service) throws IOException {
+        int applied = 0;
+        long validEnd = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > (1 << 20)) break;
+                byte[] body = new byte[length];
+                int crcValue;
+                try {
+                    in.readFully(body);
+                    crcValue = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != crcValue) break;
+
+                apply(new DataInputStream(new ByteArrayInputStream(body)), service);
+                applied++;
+                validEnd += 8 + length;
+            }
+        }
+
+        if (validEnd < Files.size(segment)) {
+            System.err.println("Journal: discarding torn tail of " + segment.getFileName() + " at byte " + validEnd);
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                ch.truncate(validEnd);
+            }
+        }
+        return applied;
+    }
+
+    // Each record is applied idempotently: existing ids/codes/enrollments are left as they are
+    private static void apply(DataInputStream in, CCRMService service) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STUDENT_ADDED -> service.loadStudents(List.of(new Student(in.readInt(), in.readUTF(), in.readUTF())));
+            case INSTRUCTOR_ADDED -> service.loadInstructors(List.of(
+                    new Instructor(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF())));
+            case COURSE_ADDED -> {
+                int id = in.readInt();
+                service.loadCourses(List.of(
+                        new Course.Builder(in.readUTF(), in.readUTF()).id(id).credits(in.readByte()).build()));
+            }
+            case ENROLLED -> {
+                Student s = service.getStudent(in.readInt());
+                Course c = service.getCourse(in.readInt());
+                Semester sem = SEMESTERS[in.readByte()];
+                LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                if (s != null && c != null) service.loadEnrollments(List.of(new Enrollment(s, c, sem, date)));
+            }
+            case GRADE_RECORDED -> {
+                int sId = in.readInt();
+                Course c = service.getCourse(in.readInt());
+                Semester sem = SEMESTERS[in.readByte()];
+                int grade = in.readByte();
+                Enrollment e = c == null ? null : service.findEnrollment(sId, c.getCode(), sem);
+                if (e != null && grade >= 0) service.recordGrade(e, GRADES[grade]);
+            }
+            case INSTRUCTOR_ASSIGNED -> {
+                int iId = in.readInt();
+                service.assignInstructorToCourse(iId, service.getCourse(in.readInt()));
+            }
+            case DROPPED -> {
+                int sId = in.readInt();
+                Course c = service.getCourse(in.readInt());
+                Semester sem = SEMESTERS[in.readByte()];
+                if (c != null) service.dropEnrollment(service.findEnrollment(sId, c.getCode(), sem));
+            }
+            case CAPACITY_CHANGED -> service.setCourseCapacity(service.getCourse(in.readInt()), in.readInt());
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+    }
+}
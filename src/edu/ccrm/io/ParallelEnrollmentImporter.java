@@ -0,0 +1,354 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Op;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel import for very large enrollment files.
+ *
+ * The file is split into byte ranges aligned on newline boundaries, each range is
+ * memory-mapped (FileChannel.map) and parsed on a fork-join pool directly from the mapped
+ * bytes. Rows are resolved against prebuilt student/course indexes and the per-chunk
+ * results are concatenated in chunk order, so the output preserves file order. Course ids
+ * are parsed straight from the bytes; only course codes (older files, which have no header)
+ * are decoded to strings.
+ *
+ * Rows containing quotes are handed to CsvReader; quoted fields spanning several lines
+ * are not supported here (enrollment rows never contain free text), use the sequential
+ * importer for such files.
+ */
+public class ParallelEnrollmentImporter {
+
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    // Each mapping must stay below 2 GB; smaller chunks also balance the pool better
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelEnrollmentImporter() { }
+
+    public static List<Enrollment> importEnrollments(Path path, Map<Integer, Student> studentMap,
+                                                     Map<String, Course> courseMap, ImportReport report,
+                                                     int parallelism) throws IOException {
+        return Metrics.time(Op.IMPORT_ENROLLMENTS, () -> read(path, studentMap, courseMap, report, parallelism));
+    }
+
+    private static List<Enrollment> read(Path path, Map<Integer, Student> studentMap,
+                                         Map<String, Course> courseMap, ImportReport report,
+                                         int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = headerEnd(channel, size);
+            boolean ids = headerEnd > 0;
+            List<long[]> ranges = split(channel, headerEnd, size, parallelism);
+
+            LocalDate today = LocalDate.now();
+            CourseRefs courses = new CourseRefs(courseMap);
+            List<ChunkTask> tasks = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+                tasks.add(new ChunkTask(mapped, studentMap, courses, ids, today, report.getSource()));
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                tasks.forEach(pool::execute);
+
+                // Join in file order: chunk i's lines start after all lines of chunks 0..i-1
+                List<Enrollment> result = new ArrayList<>();
+                long lineOffset = ids ? 1 : 0;
+                for (ChunkTask task : tasks) {
+                    ChunkResult chunk = task.join();
+                    result.addAll(chunk.enrollments);
+                    report.merge(chunk.report, lineOffset);
+                    lineOffset += chunk.lines;
+                }
+                return result;
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The offset just after the first line if it is CourseRefs.HEADER (a file of course ids), else 0.
+     */
+    private static long headerEnd(FileChannel channel, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate((int) Math.min(size, 256));
+        int n = 0;
+        for (int r; probe.hasRemaining() && (r = channel.read(probe, n)) > 0; ) n += r;
+        int nl = 0;
+        while (nl < n && probe.get(nl) != '\n') nl++;
+        String[] first = new String(probe.array(), 0, nl, StandardCharsets.UTF_8).split(",", -1);
+        if (first.length < 2 || !CourseRefs.isHeader(first[0], first[1])) return 0;
+        return Math.min(size, nl + 1);
+    }
+
+    /**
+     * Splits [from, size) into ranges whose boundaries fall just after a '\n'.
+     */
+    private static List<long[]> split(FileChannel channel, long from, long size, int parallelism) throws IOException {
+        int target = Math.max(1, parallelism * CHUNKS_PER_THREAD);
+        long chunkSize = Math.max(1, Math.min(MAX_CHUNK_BYTES, (size - from + target - 1) / target));
+
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = from;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // Move the boundary forward to the byte after the next newline
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) { end = size; break; }
+                int nl = -1;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') { nl = i; break; }
+                }
+                if (nl >= 0) { end += nl + 1; break; }
+                end += n;
+            }
+            ranges.add(new long[] { start, end });
+            start = end;
+        }
+        return ranges;
+    }
+
+    private static final class ChunkResult {
+        final List<Enrollment> enrollments = new ArrayList<>();
+        final ImportReport report;
+        long lines;
+
+        ChunkResult(String source) {
+            this.report = new ImportReport(source);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private final MappedByteBuffer buf;
+        private final Map<Integer, Student> studentMap;
+        private final CourseRefs courses;
+        private final boolean ids; // the course column holds ids, not codes
+        private final LocalDate today;
+        private final String source;
+
+        // Scratch buffers reused for every row of the chunk
+        private byte[] scratch = new byte[32];
+        private final int[] fields = new int[10]; // start/end pairs for up to 5 fields
+
+        ChunkTask(MappedByteBuffer buf, Map<Integer, Student> studentMap, CourseRefs courses,
+                  boolean ids, LocalDate today, String source) {
+            this.buf = buf;
+            this.studentMap = studentMap;
+            this.courses = courses;
+            this.ids = ids;
+            this.today = today;
+            this.source = source;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            ChunkResult result = new ChunkResult(source);
+            int limit = buf.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+                result.lines++;
+
+                int end = lineEnd;
+                if (end > lineStart && buf.get(end - 1) == '\r') end--;
+                parseLine(lineStart, end, result);
+
+                lineStart = lineEnd + 1;
+            }
+            return result;
+        }
+
+        private void parseLine(int start, int end, ChunkResult result) {
+            // Skip blank lines
+            int first = start;
+            while (first < end && isBlank(buf.get(first))) first++;
+            if (first == end) return;
+
+            ImportReport report = result.report;
+            report.rowRead();
+            try {
+                Enrollment e = hasQuote(start, end) ? parseQuoted(start, end) : parsePlain(start, end);
+                result.enrollments.add(e);
+                report.rowImported();
+            } catch (RuntimeException ex) {
+                report.problem(result.lines, "invalid enrollment record [" + text(start, end) + "]: " + ex.getMessage());
+            }
+        }
+
+        private Enrollment parsePlain(int start, int end) {
+            int count = 0;
+            int fieldStart = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || buf.get(i) == ',') {
+                    if (count < 5) {
+                        fields[count * 2] = fieldStart;
+                        fields[count * 2 + 1] = i;
+                    }
+                    count++;
+                    fieldStart = i + 1;
+                }
+            }
+            if (count < 3) throw new IllegalArgumentException("expected at least 3 fields");
+
+            int sId = parseInt(fields[0], fields[1]);
+            Course c = course(fields[2], fields[3]);
+            Semester sem = matchEnum(fields[4], fields[5], SEMESTERS);
+            Grade grade = count > 3 ? matchEnum(fields[6], fields[7], GRADES) : null;
+            return resolve(sId, c, sem, grade);
+        }
+
+        private Enrollment parseQuoted(int start, int end) {
+            try (CsvReader csv = new CsvReader(new StringReader(text(start, end)))) {
+                if (!csv.next()) throw new IllegalArgumentException("empty record");
+                if (csv.error() != null) throw new IllegalArgumentException(csv.error());
+                if (csv.fieldCount() < 3) throw new IllegalArgumentException("expected at least 3 fields");
+                Grade grade = csv.fieldCount() > 3 ? csv.getEnum(3, GRADES) : null;
+                String cRef = csv.getString(1).toUpperCase();
+                Course c = courses.resolve(cRef, ids);
+                if (c == null) throw new IllegalArgumentException("unknown course " + cRef);
+                return resolve(csv.getInt(0), c, csv.getEnum(2, SEMESTERS), grade);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // StringReader never fails
+            }
+        }
+
+        private Enrollment resolve(int sId, Course c, Semester sem, Grade grade) {
+            if (sem == null) throw new IllegalArgumentException("missing semester");
+            Student s = studentMap.get(sId);
+            if (s == null) throw new IllegalArgumentException("unknown student " + sId);
+
+            Enrollment e = new Enrollment(s, c, sem, today);
+            e.setGrade(grade);
+            return e;
+        }
+
+        // The course with that id (id-format files), else the course with that code
+        private Course course(int start, int end) {
+            int id = ids ? digits(start, end) : -1;
+            if (id >= 0) {
+                Course c = courses.byId(id);
+                if (c == null) throw new IllegalArgumentException("unknown course " + id);
+                return c;
+            }
+            String code = decodeUpper(start, end);
+            Course c = courses.byCode(code);
+            if (c == null) throw new IllegalArgumentException("unknown course " + code);
+            return c;
+        }
+
+        // --- Byte-level field helpers (fields are trimmed like CsvReader's unquoted fields) ---
+
+        // The value of a field made of 1-9 digits, else -1
+        private int digits(int start, int end) {
+            while (start < end && isBlank(buf.get(start))) start++;
+            while (end > start && isBlank(buf.get(end - 1))) end--;
+            if (start == end || end - start > 9) return -1;
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) return -1;
+                value = value * 10 + d;
+            }
+            return value;
+        }
+
+        private int parseInt(int start, int end) {
+            while (start < end && isBlank(buf.get(start))) start++;
+            while (end > start && isBlank(buf.get(end - 1))) end--;
+            if (start == end) throw new NumberFormatException("empty student id");
+
+            boolean negative = buf.get(start) == '-';
+            int i = negative ? start + 1 : start;
+            if (i == end) throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+            long value = 0;
+            for (; i < end; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9 || value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+                }
+                value = value * 10 + d;
+            }
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+                throw new NumberFormatException("Out of range: \"" + text(start, end) + "\"");
+            }
+            return (int) value;
+        }
+
+        private String decodeUpper(int start, int end) {
+            while (start < end && isBlank(buf.get(start))) start++;
+            while (end > start && isBlank(buf.get(end - 1))) end--;
+            int len = end - start;
+            if (len > scratch.length) scratch = new byte[len];
+            boolean ascii = true;
+            for (int i = 0; i < len; i++) {
+                byte b = buf.get(start + i);
+                if (b < 0) ascii = false;
+                else if (b >= 'a' && b <= 'z') b -= 32;
+                scratch[i] = b;
+            }
+            String code = new String(scratch, 0, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            return ascii ? code : code.toUpperCase();
+        }
+
+        private <E extends Enum<E>> E matchEnum(int start, int end, E[] values) {
+            while (start < end && isBlank(buf.get(start))) start++;
+            while (end > start && isBlank(buf.get(end - 1))) end--;
+            int len = end - start;
+            if (len == 0) return null;
+            for (E value : values) {
+                String name = value.name();
+                if (name.length() != len) continue;
+                boolean match = true;
+                for (int k = 0; k < len && match; k++) {
+                    int b = buf.get(start + k);
+                    if (b >= 'a' && b <= 'z') b -= 32;
+                    match = b == name.charAt(k);
+                }
+                if (match) return value;
+            }
+            throw new IllegalArgumentException("Unknown value \"" + text(start, end) + "\"");
+        }
+
+        private boolean hasQuote(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buf.get(i) == '"') return true;
+            }
+            return false;
+        }
+
+        private String text(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary snapshot of the whole dataset, used as a fast startup path.
+ * CSV remains the interchange format; the snapshot is written next to it on save and
+ * loaded with one sequential buffered read when it is newer than the CSV files.
+ *
+ * Layout (big-endian, DataOutput):
+ *   int MAGIC, short VERSION
+ *   int n, n x student    (id, name, email, active)
+ *   int n, n x instructor (id, name, email, department, active)
+ *   int n, n x course     (id, code, title, credits, department, semester or -1,
+ *                          instructor id or 0, capacity or 0)
+ *   int n, n x enrollment (student id, course id, semester, grade or -1, epoch day)
+ *   long CRC32 of everything above
+ */
+public class SnapshotService {
+
+    private static final int MAGIC = 0x4343524D; // "CCRM"
+    private static final short VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+
+    /**
+     * Everything read from a snapshot, in file order.
+     */
+    public static final class Snapshot {
+        private final List<Student> students;
+        private final List<Instructor> instructors;
+        private final List<Course> courses;
+        private final List<Enrollment> enrollments;
+
+        Snapshot(List<Student> students, List<Instructor> instructors, List<Course> courses, List<Enrollment> enrollments) {
+            this.students = students;
+            this.instructors = instructors;
+            this.courses = courses;
+            this.enrollments = enrollments;
+        }
+
+        public List<Student> getStudents() { return students; }
+        public List<Instructor> getInstructors() { return instructors; }
+        public List<Course> getCourses() { return courses; }
+        public List<Enrollment> getEnrollments() { return enrollments; }
+    }
+
+    private SnapshotService() { }
+
+    /**
+     * True if the snapshot exists and is at least as new as every CSV file that exists.
+     */
+    public static boolean isUsable(Path snapshot, Path... csvFiles) throws IOException {
+        if (!Files.isRegularFile(snapshot)) return false;
+        long snapTime = Files.getLastModifiedTime(snapshot).toMillis();
+        for (Path csv : csvFiles) {
+            if (Files.exists(csv) && Files.getLastModifiedTime(csv).toMillis() > snapTime) return false;
+        }
+        return true;
+    }
+
+    // ---------------- Write ----------------
+
+    /**
+     * Writes the snapshot to a temp file and atomically moves it over 'path'.
+     */
+    public static void write(Path path, List<Student> students, List<Instructor> instructors,
+                             List<Course> courses, List<Enrollment> enrollments) throws IOException {
+        Path target = path.toAbsolutePath();
+        Path temp = AtomicFiles.createTempFor(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE));
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            // Enrollments may only refer to students written here, as read() requires
+            Set<Integer> writtenStudents = new HashSet<>(students.size() * 2);
+            out.writeInt(students.size());
+            for (Student s : students) {
+                writtenStudents.add(s.getId());
+                out.writeInt(s.getId());
+                out.writeUTF(s.getFullName());
+                out.writeUTF(s.getEmail());
+                out.writeBoolean(s.isActive());
+            }
+
+            out.writeInt(instructors.size());
+            for (Instructor i : instructors) {
+                out.writeInt(i.getId());
+                out.writeUTF(i.getFullName());
+                out.writeUTF(i.getEmail());
+                out.writeUTF(i.getDepartment() == null ? "" : i.getDepartment());
+                out.writeBoolean(i.isActive());
+            }
+
+            // Enrollments refer to courses by id; only courses written here may be referenced
+            Set<Course> written = Collections.newSetFromMap(new IdentityHashMap<>());
+            out.writeInt(courses.size());
+            for (Course c : courses) {
+                if (c.getId() == 0) throw new IOException("Course " + c.getCode() + " has no id; only registered courses can be saved.");
+                written.add(c);
+                out.writeInt(c.getId());
+                out.writeUTF(c.getCode());
+                out.writeUTF(c.getTitle());
+                out.writeByte(c.getCredits());
+                out.writeUTF(c.getDepartment() == null ? "" : c.getDepartment());
+                out.writeByte(c.getSemester() == null ? -1 : c.getSemester().ordinal());
+                out.writeInt(c.getInstructor() == null ? 0 : c.getInstructor().getId());
+                out.writeInt(c.getCapacity());
+            }
+
+            // Size is captured up front so a concurrently growing list can't break the count
+            int count = enrollments.size();
+            out.writeInt(count);
+            for (int k = 0; k < count; k++) {
+                Enrollment e = enrollments.get(k);
+                if (!writtenStudents.contains(e.getStudent().getId())) {
+                    throw new IOException("Enrollment references a student missing from the snapshot: " + e.getStudent().getId());
+                }
+                if (!written.contains(e.getCourse())) throw new IOException("Enrollment references a course missing from the snapshot: " + e.getCourse().getCode());
+                out.writeInt(e.getStudent().getId());
+                out.writeInt(e.getCourse().getId());
+                out.writeByte(e.getSemester().ordinal());
+                out.writeByte(e.getGrade() == null ? -1 : e.getGrade().ordinal());
+                out.writeInt((int) e.getEnrollmentDate().toEpochDay());
+            }
+
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        AtomicFiles.replace(temp, target);
+    }
+
+    // ---------------- Read ----------------
+
+    public static Snapshot read(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE), crc)) {
+            DataInputStream in = new DataInputStream(checked);
+
+            if (in.readInt() != MAGIC) throw new IOException("Not a CCRM snapshot: " + path);
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + " in " + path);
+
+            int n = in.readInt();
+            List<Student> students = new ArrayList<>(n);
+            Map<Integer, Student> studentsById = new HashMap<>(n * 2);
+            for (int k = 0; k < n; k++) {
+                Student s = new Student(in.readInt(), in.readUTF(), in.readUTF());
+                if (!in.readBoolean()) s.deactivate();
+                students.add(s);
+                studentsById.put(s.getId(), s);
+            }
+
+            n = in.readInt();
+            List<Instructor> instructors = new ArrayList<>(n);
+            Map<Integer, Instructor> instructorsById = new HashMap<>(n * 2);
+            for (int k = 0; k < n; k++) {
+                Instructor i = new Instructor(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+                if (!in.readBoolean()) i.deactivate();
+                instructors.add(i);
+                instructorsById.put(i.getId(), i);
+            }
+
+            n = in.readInt();
+            List<Course> courses = new ArrayList<>(n);
+            Map<Integer, Course> coursesById = new HashMap<>(n * 2);
+            for (int k = 0; k < n; k++) {
+                int id = in.readInt();
+                Course.Builder b = new Course.Builder(in.readUTF(), in.readUTF())
+                        .id(id)
+                        .credits(in.readByte())
+                        .department(in.readUTF());
+                int sem = in.readByte();
+                int instructorId = in.readInt();
+                if (sem >= 0) b.semester(SEMESTERS[sem]);
+                if (instructorId > 0) b.instructor(instructorsById.get(instructorId));
+                b.capacity(in.readInt());
+                Course c = b.build();
+                courses.add(c);
+                coursesById.put(id, c);
+            }
+
+            n = in.readInt();
+            List<Enrollment> enrollments = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                Student s = studentsById.get(in.readInt());
+                int ref = in.readInt();
+                Course c = coursesById.get(ref);
+                Semester sem = SEMESTERS[in.readByte()];
+                int grade = in.readByte();
+                LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                if (s == null) throw new IOException("Snapshot enrollment references an unknown student");
+                if (c == null) throw new IOException("Snapshot enrollment references an unknown course " + ref);
+
+                Enrollment e = new Enrollment(s, c, sem, date);
+                if (grade >= 0) e.setGrade(GRADES[grade]);
+                enrollments.add(e);
+            }
+
+            long expected = crc.getValue();
+            if (in.readLong() != expected) throw new IOException("Snapshot checksum mismatch: " + path);
+
+            return new Snapshot(students, instructors, courses, enrollments);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot " + path + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (the HdrHistogram layout).
+ *
+ * Values below 128 ns get one bucket each; above that every power of two is split into 64
+ * equal buckets, so any recorded value is reported within 1/64 (about 1.6%) of its true value,
+ * from nanoseconds up to about 73 minutes. Recording is a few atomic increments on
+ * preallocated arrays: no locks and no allocation.
+ *
+ * Snapshots read the buckets one by one while recording continues, so a snapshot taken under
+ * load may be off by the few values recorded while it was being read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int FULL = 1 << SUB_BITS;        // linear buckets below this value
+    private static final int HALF = FULL >>> 1;           // buckets per power of two above it
+    private static final int MAX_EXPONENT = 41;           // 2^42 ns ~ 73 min; larger values share the top bucket
+    private static final int BUCKETS = FULL + (MAX_EXPONENT - SUB_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        sum.addAndGet(nanos);
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < FULL) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BITS + 1;
+        int sub = (int) (value >>> shift); // in [HALF, FULL)
+        return FULL + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    // Highest value that falls into the bucket
+    static long upperBoundOf(int index) {
+        if (index < FULL) return index;
+        int j = index - FULL;
+        int shift = j / HALF + 1;
+        long sub = j % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0; // from the copied buckets, so percentile ranks agree with them
+        for (int i = 0; i < BUCKETS; i++) n += copy[i] = counts.get(i);
+        return new Snapshot(copy, n, sum.get(), max.get());
+    }
+
+    /**
+     * Immutable copy of a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMaxNanos() { return max; }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile in 0..100, e.g. 99.9
+         * @return the value at or below which that share of the recorded values fall (0 if empty).
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * Calls 'visitor' for every non-empty bucket, in increasing order of value.
+         */
+        public void forEachBucket(BucketVisitor visitor) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) visitor.bucket(upperBoundOf(i), counts[i]);
+            }
+        }
+    }
+
+    public interface BucketVisitor {
+        void bucket(long upperBoundNanos, long count);
+    }
+}
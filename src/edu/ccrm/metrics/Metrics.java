@@ -0,0 +1,166 @@
+package edu.ccrm.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the operations in {@link Op}.
+ *
+ * Instrumented code takes a start time and reports the outcome:
+ * <pre>
+ *   long start = Metrics.start();
+ *   try {
+ *       ...
+ *       Metrics.success(Op.ENROLL_STUDENT, start);
+ *   } catch (Exception e) {
+ *       Metrics.failure(Op.ENROLL_STUDENT, start, e);
+ *       throw e;
+ *   }
+ * </pre>
+ * or, where a lambda per call doesn't matter, wraps the body: {@code Metrics.time(Op.BACKUP, () -> ...)}.
+ * Successes are lock- and allocation-free. Failures are also counted per exception type.
+ */
+public final class Metrics {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final class OpMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    }
+
+    private static final OpMetrics[] OPS = new OpMetrics[Op.values().length];
+    private static volatile LocalDateTime since = LocalDateTime.now();
+
+    static {
+        for (Op op : Op.values()) OPS[op.ordinal()] = new OpMetrics();
+    }
+
+    private Metrics() {}
+
+    /**
+     * A timed body; E is the checked exception it may throw.
+     */
+    public interface Timed<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void success(Op op, long start) {
+        OPS[op.ordinal()].latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a call that ended with 't'; its latency still counts towards the histogram.
+     */
+    public static void failure(Op op, long start, Throwable t) {
+        OpMetrics m = OPS[op.ordinal()];
+        m.latency.record(System.nanoTime() - start);
+        m.errors.increment();
+        m.errorsByType.computeIfAbsent(t.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Runs 'body' and records its latency and outcome under 'op'.
+     */
+    public static <T, E extends Exception> T time(Op op, Timed<T, E> body) throws E {
+        long start = start();
+        try {
+            T result = body.call();
+            success(op, start);
+            return result;
+        } catch (Exception e) {
+            failure(op, start, e);
+            throw e;
+        }
+    }
+
+    public static LatencyHistogram.Snapshot latency(Op op) {
+        return OPS[op.ordinal()].latency.snapshot();
+    }
+
+    public static long errors(Op op) {
+        return OPS[op.ordinal()].errors.sum();
+    }
+
+    /**
+     * @return error counts of 'op' keyed by exception class name.
+     */
+    public static Map<String, Long> errorsByType(Op op) {
+        Map<String, Long> result = new TreeMap<>();
+        OPS[op.ordinal()].errorsByType.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    public static void reset() {
+        for (OpMetrics m : OPS) {
+            m.latency.reset();
+            m.errors.reset();
+            m.errorsByType.clear();
+        }
+        since = LocalDateTime.now();
+    }
+
+    /**
+     * A table of count, errors and latency percentiles for every operation called so far.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("--- Operation Metrics (since %s) ---%n", since.format(TIME)));
+        sb.append(String.format("%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Operation", "Count", "Errors", "Mean", "p50", "p90", "p99", "p99.9", "Max"));
+        boolean any = false;
+        for (Op op : Op.values()) {
+            LatencyHistogram.Snapshot s = latency(op);
+            if (s.getCount() == 0) continue;
+            any = true;
+            sb.append(String.format("%-26s %9d %7d %9s %9s %9s %9s %9s %9s%n",
+                    op.getLabel(), s.getCount(), errors(op), duration(s.getMeanNanos()),
+                    duration(s.getPercentileNanos(50)), duration(s.getPercentileNanos(90)),
+                    duration(s.getPercentileNanos(99)), duration(s.getPercentileNanos(99.9)),
+                    duration(s.getMaxNanos())));
+            errorsByType(op).forEach((type, n) -> sb.append(String.format("    %s: %d%n", type, n)));
+        }
+        if (!any) sb.append(String.format("No operations recorded yet.%n"));
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report followed by the raw histogram buckets (upper bound in ns = count),
+     * so percentiles can be recomputed or merged later.
+     */
+    public static void dump(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder(report());
+        sb.append(String.format("%n--- Histogram buckets (upper bound ns=count) ---%n"));
+        for (Op op : Op.values()) {
+            LatencyHistogram.Snapshot s = latency(op);
+            if (s.getCount() == 0) continue;
+            sb.append(op.getLabel()).append(':');
+            s.forEachBucket((upper, count) -> sb.append(' ').append(upper).append('=').append(count));
+            sb.append(System.lineSeparator());
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    private static String duration(double nanos) {
+        if (nanos < 1_000) return String.format(Locale.ROOT, "%.0f ns", nanos);
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,30 @@
+package edu.ccrm.metrics;
+
+/**
+ * The operations whose latency and failures are tracked.
+ */
+public enum Op {
+    ENROLL_STUDENT("enrollStudent"),
+    ENROLL_BATCH("enrollBatch"),
+    RECORD_GRADE("recordGrade"),
+    DROP_ENROLLMENT("dropEnrollment"),
+    QUERY("query"),
+    IMPORT_STUDENTS("importStudents"),
+    IMPORT_COURSES("importCourses"),
+    IMPORT_ENROLLMENTS("importEnrollments"),
+    IMPORT_ENROLLMENT_REQUESTS("importEnrollmentRequests"),
+    EXPORT_STUDENTS("exportStudents"),
+    EXPORT_COURSES("exportCourses"),
+    EXPORT_ENROLLMENTS("exportEnrollments"),
+    BACKUP("backup"),
+    RESTORE("restore"),
+    PRUNE_BACKUPS("pruneBackups");
+
+    private final String label;
+
+    Op(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
@@ -0,0 +1,74 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of CCRMService.enrollBatch: which requests were accepted and which were
+ * rejected (with the reason), instead of one console line per enrollment.
+ */
+public class BatchResult {
+
+    public enum Reason {
+        UNKNOWN_STUDENT,
+        UNKNOWN_COURSE,
+        INVALID_SEMESTER,
+        DUPLICATE_ENROLLMENT,   // same rule as DuplicateEnrollmentException
+        MAX_CREDITS_EXCEEDED,   // same rule as MaxCreditLimitExceededException
+        COURSE_FULL,            // no seat left (batches don't waitlist)
+        ROLLED_BACK             // valid on its own, but an atomic batch failed elsewhere
+    }
+
+    public static final class Rejection {
+        private final EnrollmentRequest request;
+        private final Reason reason;
+        private final String message;
+
+        Rejection(EnrollmentRequest request, Reason reason, String message) {
+            this.request = request;
+            this.reason = reason;
+            this.message = message;
+        }
+
+        public EnrollmentRequest getRequest() { return request; }
+        public Reason getReason() { return reason; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s: %s", request, reason, message);
+        }
+    }
+
+    private final List<Enrollment> accepted = new ArrayList<>();
+    private final List<Rejection> rejected = new ArrayList<>();
+    private boolean applied;
+
+    void accept(Enrollment e) { accepted.add(e); }
+    void reject(EnrollmentRequest request, Reason reason, String message) { rejected.add(new Rejection(request, reason, message)); }
+    void setApplied(boolean applied) { this.applied = applied; }
+
+    // Atomic batch failed: every otherwise-valid request is reported as rolled back
+    void rollBack(List<EnrollmentRequest> acceptedRequests) {
+        acceptedRequests.forEach(r -> reject(r, Reason.ROLLED_BACK, "Batch aborted because other requests failed."));
+        accepted.clear();
+        applied = false;
+    }
+
+    public List<Enrollment> getAccepted() { return Collections.unmodifiableList(accepted); }
+    public List<Rejection> getRejected() { return Collections.unmodifiableList(rejected); }
+
+    /**
+     * @return true if the accepted enrollments were written to the service state.
+     */
+    public boolean isApplied() { return applied; }
+
+    @Override
+    public String toString() {
+        return String.format("Batch %s: %d accepted, %d rejected",
+                             applied ? "applied" : "not applied", accepted.size(), rejected.size());
+    }
+}
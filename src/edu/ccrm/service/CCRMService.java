@@ -2,27 +2,101 @@ package edu.ccrm.service;
 
 import edu.ccrm.domain.*;
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.Settings;
+import edu.ccrm.exceptions.CourseFullException;
 import edu.ccrm.exceptions.DuplicateEnrollmentException;
 import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Op;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Core service for students, instructors, courses and enrollments.
+ * Safe for concurrent use: lookups and listings never block, and enrollments are
+ * serialized per student (striped locks) so the credit limit holds under contention.
+ */
 public class CCRMService {
 
     // Fields hold references to the lists passed from AppConfig
     private final List<Student> students;
     private final List<Instructor> instructors;
     private final List<Course> courses;
-    private final List<Enrollment> enrollments;
+    private final List<Enrollment> enrollments; // an enrollment's id is its position + 1; drops leave tombstones
+    private final AtomicInteger droppedCount = new AtomicInteger();
+
+    // Primary-key indexes over the lists above (id, email, course code)
+    private final Registry registry;
+
+    // (student, semester) -> courses + running credits, kept in step with 'enrollments'
+    private final EnrollmentIndex enrollmentIndex = new EnrollmentIndex();
+
+    // Plans and runs EnrollmentQuery objects over the list and the index above
+    private final QueryEngine queryEngine;
+
+    // Striped per-student locks: enrollments of different students proceed in parallel,
+    // while the duplicate/credit checks and the write for one student are atomic.
+    private static final int LOCK_STRIPES = 64;
+    private final ReentrantLock[] studentLocks = new ReentrantLock[LOCK_STRIPES];
+
+    // Notified after each successful mutation (journal, etc.)
+    private final List<ServiceListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Immutable settings snapshot; replaced as a whole on config reload, read once per operation
+    private volatile Settings settings;
 
     public CCRMService(List<Student> students, List<Instructor> instructors,
                        List<Course> courses, List<Enrollment> enrollments) {
+        this(students, instructors, courses, enrollments, AppConfig.getInstance().getSettings());
+    }
+
+    public CCRMService(List<Student> students, List<Instructor> instructors,
+                       List<Course> courses, List<Enrollment> enrollments, Settings settings) {
+        this.settings = settings;
         this.students = students;
         this.instructors = instructors;
         this.courses = courses;
         this.enrollments = enrollments;
+        this.registry = new Registry(students, instructors, courses);
+        for (int i = 0; i < enrollments.size(); i++) {
+            Enrollment e = enrollments.get(i);
+            if (e.getId() == 0) e.assignId(i + 1);
+            enrollmentIndex.add(e);
+        }
+        this.queryEngine = new QueryEngine(enrollments, courses, enrollmentIndex,
+                () -> this.settings.getQueryParallelMinRows());
+        for (int i = 0; i < LOCK_STRIPES; i++) studentLocks[i] = new ReentrantLock();
+    }
+
+    private int stripeFor(int studentId) {
+        return Math.floorMod(Integer.hashCode(studentId) * 0x9E3779B9, LOCK_STRIPES);
+    }
+
+    private ReentrantLock lockFor(int studentId) {
+        return studentLocks[stripeFor(studentId)];
+    }
+
+    public Settings getSettings() { return settings; }
+
+    /**
+     * Switches to new settings (e.g. after a config reload); operations already running keep the old ones.
+     */
+    public void updateSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void addListener(ServiceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ServiceListener listener) {
+        listeners.remove(listener);
     }
 
     // --- FIX: Accessor methods for mutable lists (Used by Main.java for import/export) ---
@@ -30,6 +104,108 @@ public class CCRMService {
     public List<Instructor> getInstructors() { return instructors; }
     public List<Course> getCourses() { return courses; }
     public List<Enrollment> getEnrollments() { return enrollments; }
+    public Registry getRegistry() { return registry; }
+
+    /**
+     * Captures a consistent view of all data for saving or backup, without locking out
+     * operators. The enrollment prefix is fixed first and the entity lists copied after,
+     * so every captured enrollment's student and course are in the captured lists.
+     */
+    public StateView captureState() {
+        int enrollmentCount = enrollments.size();
+        // Enrollments are append-only, so a prefix never changes once published;
+        // once anything was dropped, the live ones are copied out instead
+        List<Enrollment> enrollmentPrefix = Collections.unmodifiableList(droppedCount.get() == 0
+                ? enrollments.subList(0, enrollmentCount)
+                : enrollments.subList(0, enrollmentCount).stream().filter(e -> !e.isDropped()).toList());
+        return new StateView(List.copyOf(students), List.copyOf(instructors), List.copyOf(courses),
+                enrollmentPrefix, LocalDateTime.now());
+    }
+
+
+    // --- Bulk loading (keeps the registry indexes in sync with imported data) ---
+
+    public int loadStudents(Collection<Student> imported) {
+        return registry.addStudents(imported);
+    }
+
+    /**
+     * Replaces all students. Enrollments of a student whose id is imported again move to the
+     * imported Student, so its credits and GPA carry over; those of students missing from the
+     * import are dropped (not reported to listeners), and their seats go to the waitlists.
+     */
+    public void replaceStudents(Collection<Student> imported) {
+        List<Enrollment> orphaned = new ArrayList<>();
+        // Every stripe, in ascending order like enrollBatch, so no enrollment or grade change runs meanwhile
+        for (ReentrantLock lock : studentLocks) lock.lock();
+        try {
+            registry.replaceStudents(imported);
+            for (int i = 0, n = enrollments.size(); i < n; i++) {
+                Enrollment e = enrollments.get(i);
+                Student current = registry.getStudent(e.getStudent().getId());
+                if (current != null) current.adoptEnrollment(e);
+                else if (applyDrop(e)) orphaned.add(e);
+            }
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) studentLocks[i].unlock();
+        }
+        for (Enrollment e : orphaned) promoteWaitlisted(e.getCourse(), e.getSemester());
+    }
+
+    public int loadInstructors(Collection<Instructor> imported) {
+        return registry.addInstructors(imported);
+    }
+
+    public int loadCourses(Collection<Course> imported) {
+        return registry.addCourses(imported);
+    }
+
+    /**
+     * Adds imported enrollments, skipping rows that duplicate an existing (student, course, semester).
+     * @return the number of enrollments actually added.
+     */
+    public int loadEnrollments(Collection<Enrollment> imported) {
+        int added = 0;
+        for (Enrollment e : imported) {
+            ReentrantLock lock = lockFor(e.getStudent().getId());
+            lock.lock();
+            try {
+                if (applyEnrollment(e)) added++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return added;
+    }
+
+
+    // --- Paged listings (stable insertion order; see Page and Pager) ---
+
+    /**
+     * A page of students; 'cursor' is null for the first page, 'filter' may be null.
+     * @throws IllegalArgumentException if the cursor is malformed or the list was replaced since.
+     */
+    public Page<Student> pageStudents(String cursor, int pageSize, Predicate<? super Student> filter) {
+        return Pager.page(students, cursor, pageSize, filter, Student::getId);
+    }
+
+    public Page<Instructor> pageInstructors(String cursor, int pageSize, Predicate<? super Instructor> filter) {
+        return Pager.page(instructors, cursor, pageSize, filter, Instructor::getId);
+    }
+
+    public Page<Course> pageCourses(String cursor, int pageSize, Predicate<? super Course> filter) {
+        return Pager.page(courses, cursor, pageSize, filter, Course::getId);
+    }
+
+    /**
+     * A page of enrollments (dropped ones are skipped); Page.getPosition(i) + 1 is the
+     * enrollment's id.
+     */
+    public Page<Enrollment> pageEnrollments(String cursor, int pageSize, Predicate<? super Enrollment> filter) {
+        Predicate<Enrollment> live = filter == null ? e -> !e.isDropped() : e -> !e.isDropped() && filter.test(e);
+        return Pager.page(enrollments, cursor, pageSize, live,
+                e -> e.getStudent().getId() + ":" + Registry.codeKey(e.getCourse().getCode()) + ":" + e.getSemester());
+    }
 
 
     // --- Data Access & CRUD Operations ---
@@ -39,21 +215,18 @@ public class CCRMService {
     }
     
     public Student getStudent(int sId) {
-        return students.stream()
-                .filter(s -> s.getId() == sId)
-                .findFirst()
-                .orElse(null);
+        return registry.getStudent(sId);
     }
     
     public boolean addStudent(String name) {
         if (name == null || name.isBlank()) return false;
         String email = name.toLowerCase().replace(" ", "") + "@mail.com";
         
-        boolean exists = students.stream().anyMatch(s -> s.getEmail().equals(email));
-        if (exists) return false;
-        
-        int nextId = students.stream().mapToInt(Person::getId).max().orElse(0) + 1;
-        students.add(new Student(nextId, name, email));
+        if (registry.hasStudentEmail(email)) return false;
+
+        Student added = registry.addNewStudent(name, email);
+        if (added == null) return false;
+        listeners.forEach(l -> l.studentAdded(added));
         return true;
     }
 
@@ -62,19 +235,23 @@ public class CCRMService {
         return courses.stream().toList(); 
     }
 
-    public Course getCourse(int cIndex) {
-        if (cIndex <= 0 || cIndex > courses.size()) return null;
-        return courses.get(cIndex - 1);
+    public Course getCourse(int courseId) {
+        return registry.getCourse(courseId);
+    }
+
+    public Course getCourseByCode(String code) {
+        return registry.getCourseByCode(code);
     }
     
     public boolean addCourse(String code, String title) {
         if (code == null || code.isBlank() || title == null || title.isBlank()) return false;
         
-        boolean exists = courses.stream().anyMatch(c -> c.getCode().equalsIgnoreCase(code));
-        if (exists) return false;
-        
+        if (registry.hasCourseCode(code)) return false;
+
         // FIX: Use the Course.Builder pattern now that it's implemented
-        courses.add(new Course.Builder(code, title).credits(3).build());
+        Course c = new Course.Builder(code, title).credits(3).build();
+        if (!registry.addCourse(c)) return false;
+        listeners.forEach(l -> l.courseAdded(c));
         return true;
     }
     
@@ -87,46 +264,74 @@ public class CCRMService {
         if (name == null || name.isBlank() || dept == null || dept.isBlank()) return false;
         String email = name.toLowerCase().replace(" ", "") + "@mail.com";
         
-        boolean exists = instructors.stream().anyMatch(i -> i.getEmail().equals(email));
-        if (exists) return false;
-        
-        int nextId = instructors.stream().mapToInt(Person::getId).max().orElse(0) + 1;
-        instructors.add(new Instructor(nextId, name, email, dept));
+        if (registry.hasInstructorEmail(email)) return false;
+
+        Instructor added = registry.addNewInstructor(name, email, dept);
+        if (added == null) return false;
+        listeners.forEach(l -> l.instructorAdded(added));
         return true;
     }
     
-    public boolean assignInstructorToCourse(int iId, int cIndex) {
-        Instructor inst = instructors.stream().filter(i -> i.getId() == iId).findFirst().orElse(null);
-        Course c = getCourse(cIndex);
+    public boolean assignInstructorToCourse(int iId, int courseId) {
+        return assignInstructorToCourse(iId, getCourse(courseId));
+    }
+
+    public boolean assignInstructorToCourse(int iId, Course c) {
+        Instructor inst = registry.getInstructor(iId);
         if (inst == null || c == null) return false;
-        c.setInstructor(inst);
+        synchronized (c) {
+            c.setInstructor(inst);
+            listeners.forEach(l -> l.instructorAssigned(c, inst));
+        }
         return true;
     }
 
 
     // --- Mandatory Enrollment Logic (Exceptions & Singleton) ---
     
-    // Helper method using Stream API to aggregate current credits
+    // Running credit total from the (student, semester) index
     private int getCreditsForSemester(Student s, Semester sem) {
-        return enrollments.stream()
-                .filter(e -> e.getStudent().equals(s) && e.getSemester() == sem)
-                .mapToInt(e -> e.getCourse().getCredits())
-                .sum(); // Stream aggregation/reduction
+        return enrollmentIndex.creditsFor(s.getId(), sem);
     }
 
-    public void enrollStudent(int sId, int cIndex, Semester sem) 
-            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+    /**
+     * Enrolls a student, taking a seat if the course has a capacity.
+     * @throws CourseFullException if no seat is left; the student is then on the waitlist
+     *         and is enrolled automatically when a seat frees up.
+     */
+    public void enrollStudent(int sId, int courseId, Semester sem) 
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
             
+        long start = Metrics.start();
         Student s = getStudent(sId);
-        Course c = getCourse(cIndex);
-        if (s == null || c == null || sem == null) {
-            throw new IllegalArgumentException("Invalid Student ID, Course Index, or Semester provided.");
+        Course c = getCourse(courseId);
+        try {
+            if (s == null || c == null || sem == null) {
+                throw new IllegalArgumentException("Invalid Student ID, Course ID, or Semester provided.");
+            }
+
+            // The checks and the write must not interleave with another enrollment of this student
+            ReentrantLock lock = lockFor(s.getId());
+            lock.lock();
+            try {
+                enrollChecked(s, c, sem);
+            } finally {
+                lock.unlock();
+            }
+            Metrics.success(Op.ENROLL_STUDENT, start);
+        } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException | CourseFullException | RuntimeException e) {
+            Metrics.failure(Op.ENROLL_STUDENT, start, e);
+            throw e;
         }
+        System.out.printf("Enrollment successful: %s in %s (%s).\n", s.getFullName(), c.getCode(), sem);
+    }
 
+    // Caller must hold the student's lock
+    private void enrollChecked(Student s, Course c, Semester sem)
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
         // 1. Check for Duplicate Enrollment (Custom Checked Exception)
-        boolean alreadyEnrolled = enrollments.stream()
-                .anyMatch(e -> e.getStudent().equals(s) && e.getCourse().equals(c) && e.getSemester() == sem);
-        
+        boolean alreadyEnrolled = enrollmentIndex.isEnrolled(s.getId(), c.getCode(), sem);
+
         if (alreadyEnrolled) {
             throw new DuplicateEnrollmentException(
                 String.format("Student %s is already enrolled in %s for %s.", s.getFullName(), c.getCode(), sem));
@@ -134,7 +339,7 @@ public class CCRMService {
 
         // 2. Check Max Credit Limit (Custom Checked Exception & Singleton Access)
         int currentCredits = getCreditsForSemester(s, sem);
-        int maxCredits = AppConfig.getInstance().getMaxCreditsPerSemester(); // Singleton access
+        int maxCredits = settings.getMaxCreditsPerSemester();
         
         if (currentCredits + c.getCredits() > maxCredits) {
             throw new MaxCreditLimitExceededException(
@@ -142,17 +347,230 @@ public class CCRMService {
                               s.getFullName(), currentCredits, maxCredits));
         }
 
+        // 3. Take a seat, or join the waitlist (Custom Checked Exception)
+        EnrollmentIndex.Roster roster = enrollmentIndex.rosterFor(c, sem);
+        int position = roster.reserveOrWait(c.getCapacity(), s);
+        if (position > 0) {
+            throw new CourseFullException(
+                String.format("%s is full for %s (%d seats). %s is #%d on the waitlist.",
+                              c.getCode(), sem, c.getCapacity(), s.getFullName(), position), position);
+        }
+
         // If all checks pass
         Enrollment e = new Enrollment(s, c, sem);
-        enrollments.add(e);
-        s.enrollCourse(c); // Update the Student domain object list
-        System.out.printf("Enrollment successful: %s in %s (%s).\n", s.getFullName(), c.getCode(), sem);
+        applyEnrollment(e, true);
+        listeners.forEach(l -> l.enrolled(e));
+    }
+
+    // Loaded enrollments take their seat whatever the capacity
+    private boolean applyEnrollment(Enrollment e) {
+        return applyEnrollment(e, false);
+    }
+
+    /**
+     * Writes an enrollment to the index, the enrollment list and the student's running totals.
+     * Caller must hold the student's lock.
+     * @param seatReserved true if the caller already took the seat on the course's roster.
+     * @return false if it duplicates an existing enrollment (a reserved seat is given back).
+     */
+    private boolean applyEnrollment(Enrollment e, boolean seatReserved) {
+        if (!enrollmentIndex.add(e, seatReserved)) {
+            if (seatReserved) enrollmentIndex.rosterFor(e.getCourse(), e.getSemester()).releaseSeat();
+            return false;
+        }
+        // Same monitor as AppendOnlyList.add, so the id matches the position taken
+        synchronized (enrollments) {
+            e.assignId(enrollments.size() + 1);
+            enrollments.add(e);
+        }
+        e.getStudent().recordEnrollment(e); // Update the Student's course list and running totals
+        return true;
+    }
+
+    /**
+     * @return the enrollment with this id, or null if there is none or it was dropped.
+     */
+    public Enrollment getEnrollment(int id) {
+        if (id <= 0 || id > enrollments.size()) return null;
+        Enrollment e = enrollments.get(id - 1);
+        return e.isDropped() ? null : e;
+    }
+
+    public boolean dropEnrollment(int id) {
+        return dropEnrollment(getEnrollment(id));
+    }
+
+    /**
+     * Withdraws a student from a course. Constant time in the number of enrollments: the
+     * enrollment stays in the list as a tombstone (so no id shifts) and leaves the student's
+     * index bucket, the course roster and the running totals. Its seat goes to the first
+     * waitlisted student, if any.
+     * @return false if it was already dropped.
+     */
+    public boolean dropEnrollment(Enrollment e) {
+        if (e == null) return false;
+        long start = Metrics.start();
+        Student s = e.getStudent();
+        ReentrantLock lock = lockFor(s.getId());
+        lock.lock();
+        try {
+            if (!applyDrop(e)) {
+                Metrics.success(Op.DROP_ENROLLMENT, start);
+                return false;
+            }
+            listeners.forEach(l -> l.dropped(e));
+            Metrics.success(Op.DROP_ENROLLMENT, start);
+        } catch (RuntimeException ex) {
+            Metrics.failure(Op.DROP_ENROLLMENT, start, ex);
+            throw ex;
+        } finally {
+            lock.unlock();
+        }
+        promoteWaitlisted(e.getCourse(), e.getSemester()); // takes other students' locks
+        return true;
+    }
+
+    // Caller holds the student's lock and then offers the seat to the waitlist; false if 'e' wasn't live
+    private boolean applyDrop(Enrollment e) {
+        if (!enrollmentIndex.remove(e)) return false;
+        droppedCount.incrementAndGet();
+        Student s = e.getStudent();
+        s.recordDrop(e);
+        boolean stillTakesCourse = false;
+        for (Semester sem : Semester.values()) {
+            stillTakesCourse |= enrollmentIndex.isEnrolled(s.getId(), e.getCourse().getCode(), sem);
+        }
+        if (!stillTakesCourse) s.dropCourse(e.getCourse());
+        return true;
     }
     
+    /**
+     * Enrolls a whole batch of requests in a single validation pass.
+     * Requests are grouped by student and checked against the (student, semester) index plus
+     * the other requests of the same group, using the same duplicate, credit-limit and seat
+     * rules as enrollStudent, except that a full course rejects the request instead of
+     * waitlisting it. Nothing is printed; the outcome is returned as a report.
+     *
+     * @param atomic if true, the batch is applied only when every request is valid.
+     */
+    public BatchResult enrollBatch(Collection<EnrollmentRequest> requests, boolean atomic) {
+        return Metrics.time(Op.ENROLL_BATCH, () -> enrollBatchTimed(requests, atomic));
+    }
+
+    private BatchResult enrollBatchTimed(Collection<EnrollmentRequest> requests, boolean atomic) {
+        BatchResult result = new BatchResult();
+        int maxCredits = settings.getMaxCreditsPerSemester();
+
+        // Group by student, keeping the submission order inside each group
+        Map<Integer, List<EnrollmentRequest>> byStudent = new LinkedHashMap<>();
+        for (EnrollmentRequest r : requests) {
+            byStudent.computeIfAbsent(r.getStudentId(), id -> new ArrayList<>()).add(r);
+        }
+
+        // Lock every stripe the batch touches, in ascending order so batches can't deadlock
+        int[] stripes = byStudent.keySet().stream().mapToInt(this::stripeFor).distinct().sorted().toArray();
+        List<Enrollment> released = new ArrayList<>();
+        for (int stripe : stripes) studentLocks[stripe].lock();
+        try {
+            enrollBatchLocked(byStudent, atomic, result, maxCredits, released);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) studentLocks[stripes[i]].unlock();
+        }
+        // Students may have joined a waitlist while the batch held those seats
+        for (Enrollment e : released) promoteWaitlisted(e.getCourse(), e.getSemester());
+        return result;
+    }
+
+    // Seats given back by a rolled-back batch are added to 'released'
+    private void enrollBatchLocked(Map<Integer, List<EnrollmentRequest>> byStudent, boolean atomic,
+                                   BatchResult result, int maxCredits, List<Enrollment> released) {
+        // Every pending enrollment holds a seat, taken as it is validated
+        List<Enrollment> pending = new ArrayList<>();
+        List<EnrollmentRequest> pendingRequests = new ArrayList<>();
+
+        for (Map.Entry<Integer, List<EnrollmentRequest>> group : byStudent.entrySet()) {
+            Student s = getStudent(group.getKey());
+            if (s == null) {
+                group.getValue().forEach(r -> result.reject(r, BatchResult.Reason.UNKNOWN_STUDENT,
+                        "No student with ID " + r.getStudentId() + "."));
+                continue;
+            }
+
+            // Credits and courses this group adds on top of what the index already holds
+            EnumMap<Semester, Integer> credits = new EnumMap<>(Semester.class);
+            Set<String> seen = new HashSet<>();
+
+            for (EnrollmentRequest r : group.getValue()) {
+                Semester sem = r.getSemester();
+                Course c = registry.getCourseByCode(r.getCourseCode());
+                if (sem == null) {
+                    result.reject(r, BatchResult.Reason.INVALID_SEMESTER, "Semester is required.");
+                    continue;
+                }
+                if (c == null) {
+                    result.reject(r, BatchResult.Reason.UNKNOWN_COURSE, "No course with code " + r.getCourseCode() + ".");
+                    continue;
+                }
+                if (enrollmentIndex.isEnrolled(s.getId(), c.getCode(), sem) || !seen.add(sem + ":" + Registry.codeKey(c.getCode()))) {
+                    result.reject(r, BatchResult.Reason.DUPLICATE_ENROLLMENT,
+                            String.format("Student %s is already enrolled in %s for %s.", s.getFullName(), c.getCode(), sem));
+                    continue;
+                }
+                int current = credits.computeIfAbsent(sem, x -> getCreditsForSemester(s, x));
+                if (current + c.getCredits() > maxCredits) {
+                    result.reject(r, BatchResult.Reason.MAX_CREDITS_EXCEEDED,
+                            String.format("%s is at %d credits, exceeding the limit of %d.", s.getFullName(), current, maxCredits));
+                    continue;
+                }
+                if (!enrollmentIndex.rosterFor(c, sem).tryReserve(c.getCapacity(), false)) {
+                    result.reject(r, BatchResult.Reason.COURSE_FULL,
+                            String.format("%s is full for %s (%d seats).", c.getCode(), sem, c.getCapacity()));
+                    continue;
+                }
+                credits.put(sem, current + c.getCredits());
+                pending.add(new Enrollment(s, c, sem));
+                pendingRequests.add(r);
+            }
+        }
+
+        if (atomic && !result.getRejected().isEmpty()) {
+            for (Enrollment e : pending) enrollmentIndex.rosterFor(e.getCourse(), e.getSemester()).releaseSeat();
+            released.addAll(pending);
+            result.rollBack(pendingRequests);
+            return;
+        }
+
+        for (Enrollment e : pending) {
+            applyEnrollment(e, true);
+            listeners.forEach(l -> l.enrolled(e));
+            result.accept(e);
+        }
+        result.setApplied(true);
+    }
+
     public boolean recordGrade(int eIndex, Grade grade) {
-        if (eIndex <= 0 || eIndex > enrollments.size() || grade == null) return false;
-        Enrollment e = enrollments.get(eIndex - 1);
-        e.setGrade(grade);
+        if (grade == null) return false;
+        return recordGrade(getEnrollment(eIndex), grade);
+    }
+
+    public boolean recordGrade(Enrollment e, Grade grade) {
+        if (e == null || grade == null || e.isDropped()) return false;
+
+        // Grade changes update the student's running totals, so they share the student's lock
+        long start = Metrics.start();
+        ReentrantLock lock = lockFor(e.getStudent().getId());
+        lock.lock();
+        try {
+            if (e.isDropped()) return false; // dropped while we waited for the lock
+            e.setGrade(grade);
+            listeners.forEach(l -> l.gradeRecorded(e, grade));
+            Metrics.success(Op.RECORD_GRADE, start);
+        } catch (RuntimeException ex) {
+            Metrics.failure(Op.RECORD_GRADE, start, ex);
+            throw ex;
+        } finally {
+            lock.unlock();
+        }
         
         // Assertion Demo
         assert e.getGrade() == grade : "Grade recording failed invariant check!"; 
@@ -160,8 +578,93 @@ public class CCRMService {
         return true;
     }
 
-    public List<Enrollment> listEnrollments() { 
-        return enrollments.stream().toList(); 
+    /**
+     * Looks up an enrollment by its natural key through the (student, semester) index.
+     */
+    public Enrollment findEnrollment(int sId, String courseCode, Semester sem) {
+        EnrollmentIndex.SemesterLoad load = enrollmentIndex.get(sId, sem);
+        return load == null ? null : load.get(courseCode);
+    }
+
+    public List<Enrollment> listEnrollments() {
+        return enrollments.stream().filter(e -> !e.isDropped()).toList();
+    }
+
+
+    // --- Seats and rosters (per course and semester, from the course-side index) ---
+
+    /**
+     * Who is enrolled in the course for the semester, in enrollment order. No scan.
+     */
+    public List<Enrollment> roster(Course c, Semester sem) {
+        EnrollmentIndex.Roster roster = enrollmentIndex.roster(c, sem);
+        return roster == null ? Collections.emptyList() : roster.getEnrollments();
+    }
+
+    /**
+     * @return the free seats, or Integer.MAX_VALUE if the course has no capacity limit.
+     */
+    public int seatsRemaining(Course c, Semester sem) {
+        EnrollmentIndex.Roster roster = enrollmentIndex.roster(c, sem);
+        return roster == null ? (c.hasCapacityLimit() ? c.getCapacity() : Integer.MAX_VALUE)
+                              : roster.seatsRemaining(c.getCapacity());
+    }
+
+    /**
+     * The students waiting for a seat, first in line first.
+     */
+    public List<Student> waitlist(Course c, Semester sem) {
+        EnrollmentIndex.Roster roster = enrollmentIndex.roster(c, sem);
+        return roster == null ? Collections.emptyList() : roster.getWaitlist();
+    }
+
+    /**
+     * Changes the seats per semester (Course.UNLIMITED = no limit). Seats already taken are
+     * kept; any seats freed go to waitlisted students.
+     * @return the number of students promoted from the waitlists.
+     */
+    public int setCourseCapacity(Course c, int capacity) {
+        if (c == null) return 0;
+        c.setCapacity(capacity);
+        listeners.forEach(l -> l.capacityChanged(c, capacity));
+        int promoted = 0;
+        for (Semester sem : Semester.values()) promoted += promoteWaitlisted(c, sem);
+        return promoted;
+    }
+
+    /**
+     * Gives free seats to waitlisted students, first in line first. A student who can no
+     * longer take the course (now enrolled, or over the credit limit) leaves the waitlist.
+     * Must not be called while holding a student's lock: it takes the promoted students' locks.
+     */
+    private int promoteWaitlisted(Course c, Semester sem) {
+        EnrollmentIndex.Roster roster = enrollmentIndex.roster(c, sem);
+        if (roster == null) return 0;
+        int promoted = 0;
+        while (roster.waitlistSize() > 0 && roster.tryReserve(c.getCapacity(), true)) {
+            Student s = roster.pollWaitlist();
+            if (s == null) {
+                roster.releaseSeat(); // someone else emptied the waitlist; check again for newcomers
+                continue;
+            }
+            ReentrantLock lock = lockFor(s.getId());
+            lock.lock();
+            try {
+                s = getStudent(s.getId()); // the waitlisted object may have been replaced since (replaceStudents)
+                if (s == null || enrollmentIndex.isEnrolled(s.getId(), c.getCode(), sem)
+                        || getCreditsForSemester(s, sem) + c.getCredits() > settings.getMaxCreditsPerSemester()) {
+                    roster.releaseSeat();
+                    continue;
+                }
+                Enrollment e = new Enrollment(s, c, sem);
+                applyEnrollment(e, true);
+                listeners.forEach(l -> l.enrolled(e));
+                promoted++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return promoted;
     }
 
 
@@ -171,33 +674,48 @@ public class CCRMService {
         Student s = getStudent(sId);
         if (s == null) return Collections.emptyList();
 
-        return enrollments.stream()
-                .filter(e -> e.getStudent().equals(s))
-                .sorted(Comparator.comparing(Enrollment::getSemester).thenComparing(e -> e.getCourse().getCode()))
-                .toList();
+        // Already ordered by semester, then course code
+        return enrollmentIndex.transcript(sId);
     }
     
     /**
-     * Computes the GPA for a student (Mandatory Stream Aggregation).
+     * Returns the GPA for a student from their running totals (kept up to date by
+     * recordEnrollment and Enrollment.setGrade), so no enrollments are scanned.
      */
     public double computeGPA(Student s) {
-        List<Enrollment> completed = getStudentTranscript(s.getId()).stream()
-                .filter(e -> e.getGrade() != null)
-                .toList();
+        return s.getGpa();
+    }
 
-        if (completed.isEmpty()) return 0.0;
+    /**
+     * Top-N students by cumulative GPA (only students with graded credits).
+     * Uses a bounded min-heap over the students' aggregates, never the enrollments.
+     */
+    public List<Student> topStudentsByGpa(int n) {
+        if (n <= 0) return Collections.emptyList();
+        Comparator<Student> byGpa = Comparator.comparingDouble((Student s) -> s.getGpa())
+                .thenComparing(Student::getId, Comparator.reverseOrder());
 
-        // Stream API aggregation: total grade points * credits
-        double totalGradePoints = completed.stream()
-                .mapToDouble(e -> e.getGrade().getPointValue() * e.getCourse().getCredits())
-                .sum(); 
+        PriorityQueue<Student> heap = new PriorityQueue<>(byGpa);
+        for (Student s : students) {
+            if (s.getRecord().getGradedCredits() == 0) continue;
+            heap.offer(s);
+            if (heap.size() > n) heap.poll();
+        }
 
-        // Stream API aggregation: total credits
-        int totalCredits = completed.stream()
-                .mapToInt(e -> e.getCourse().getCredits())
-                .sum(); 
+        List<Student> result = new ArrayList<>(heap);
+        result.sort(byGpa.reversed());
+        return result;
+    }
 
-        return totalCredits > 0 ? totalGradePoints / totalCredits : 0.0;
+    /**
+     * Dean's list: students whose GPA for the semester meets the configured threshold.
+     */
+    public List<Student> deansList(Semester sem) {
+        double minGpa = settings.getDeansListMinGpa();
+        return students.stream()
+                .filter(s -> s.getRecord().getGradedCredits(sem) > 0 && s.getGpa(sem) >= minGpa)
+                .sorted(Comparator.comparingDouble((Student s) -> s.getGpa(sem)).reversed())
+                .toList();
     }
 
     /**
@@ -225,6 +743,30 @@ public class CCRMService {
         System.out.printf("CUMULATIVE GPA: %.2f\n", computeGPA(s));
     }
     
+    // --- Enrollment Queries ---
+
+    /**
+     * Runs a query over all enrollments, from an index where the filters allow.
+     * Without an order, the order of the results depends on the plan chosen.
+     */
+    public List<Enrollment> query(EnrollmentQuery q) {
+        return Metrics.time(Op.QUERY, () -> queryEngine.run(q));
+    }
+
+    /**
+     * Totals of the enrollments matching the query's filters, per group, in group order.
+     */
+    public <K> Map<K, EnrollmentStats> aggregate(EnrollmentQuery q, GroupBy<K> groupBy) {
+        return Metrics.time(Op.QUERY, () -> queryEngine.aggregate(q, groupBy));
+    }
+
+    /**
+     * The plan query() and aggregate() would use for 'q', without running it.
+     */
+    public QueryPlan explain(EnrollmentQuery q) {
+        return queryEngine.explain(q);
+    }
+
     // --- Mandatory Stream API Search/Filter ---
 
     /**
@@ -236,7 +778,31 @@ public class CCRMService {
                 .toList(); 
     }
     
+    /**
+     * Courses whose code starts with the prefix (case-insensitive), in code order, from the
+     * registry's sorted code index.
+     */
     public List<Course> searchCoursesByCode(String codePrefix) {
-        return searchCourses(c -> c.getCode().startsWith(codePrefix.toUpperCase()));
+        return registry.coursesByCodePrefix(codePrefix);
+    }
+
+    /**
+     * Ranked course search over codes and titles: every word of the query must match a word
+     * of the course as typed, as a prefix, as a substring, or with a typo.
+     * @return at most 'limit' courses, best match first.
+     */
+    public List<Course> searchCourses(String query, int limit) {
+        return registry.searchCourses(query, limit);
+    }
+
+    /**
+     * Ranked student search over names and emails, with the same rules as searchCourses.
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        return registry.searchStudents(query, limit);
+    }
+
+    public List<Instructor> searchInstructors(String query, int limit) {
+        return registry.searchInstructors(query, limit);
     }
 }
\ No newline at end of file
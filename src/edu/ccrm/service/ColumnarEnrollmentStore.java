@@ -0,0 +1,229 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Enrollment rows kept in primitive columns instead of objects: student id (int), course
+ * ordinal (int, into a dictionary of the distinct courses), semester (byte), grade (byte)
+ * and enrollment date (int, epoch day). A row takes 14 bytes, against about 160 for an
+ * Enrollment with its list, index and per-student entries (measured with 1.5M rows), so
+ * tens of millions of historical rows fit in a modest heap, and scans walk plain arrays.
+ *
+ * Columns grow in chunks of 16K rows, so appends never copy existing data. Appends are
+ * serialized; readers never block and see every row published before the current size.
+ * Grades are written and read with release/acquire semantics, so a reader sees a grade
+ * once setGrade has returned.
+ *
+ * Students are stored by id and resolved when a row is materialized with get().
+ * Enrollments handed out are flyweights over their row: reading the grade reads the
+ * column, and setGrade writes it. They are not linked to the student's running totals.
+ */
+public class ColumnarEnrollmentStore implements EnrollmentStore {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+    private static final byte NO_GRADE = -1;
+    private static final VarHandle GRADE_COLUMN = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    // One block of rows, column by column
+    private static final class Chunk {
+        final int[] student = new int[CHUNK_SIZE];
+        final int[] course = new int[CHUNK_SIZE];
+        final byte[] semester = new byte[CHUNK_SIZE];
+        final byte[] grade = new byte[CHUNK_SIZE];
+        final int[] day = new int[CHUNK_SIZE];
+    }
+
+    private final IntFunction<Student> students;
+
+    // Course by ordinal; copied to a larger array when full, like the chunk directory below
+    private volatile Course[] courses = new Course[64];
+    private final Map<String, Integer> courseOrdinals = new ConcurrentHashMap<>();
+
+    private volatile Chunk[] chunks = new Chunk[16];
+    private volatile int size;
+
+    /**
+     * @param students resolves a student id when a row is materialized (e.g. registry::getStudent).
+     */
+    public ColumnarEnrollmentStore(IntFunction<Student> students) {
+        this.students = students;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public synchronized int add(int studentId, Course course, Semester semester, Grade grade, LocalDate enrollmentDate) {
+        if (course == null || semester == null || enrollmentDate == null) {
+            throw new IllegalArgumentException("Enrollment must have a valid course, semester and date.");
+        }
+        int row = size;
+        int c = row >>> CHUNK_BITS;
+        Chunk[] dir = chunks;
+        if (c == dir.length) chunks = dir = Arrays.copyOf(dir, dir.length * 2);
+        if (dir[c] == null) dir[c] = new Chunk();
+        Chunk chunk = dir[c];
+        int i = row & CHUNK_MASK;
+        chunk.student[i] = studentId;
+        chunk.course[i] = ordinalOf(course);
+        chunk.semester[i] = (byte) semester.ordinal();
+        chunk.grade[i] = grade == null ? NO_GRADE : (byte) grade.ordinal();
+        chunk.day[i] = (int) enrollmentDate.toEpochDay();
+        size = row + 1; // volatile write publishes the row
+        return row;
+    }
+
+    // Caller holds the lock
+    private int ordinalOf(Course course) {
+        String key = Registry.codeKey(course.getCode());
+        Integer ordinal = courseOrdinals.get(key);
+        if (ordinal != null) return ordinal;
+        int next = courseOrdinals.size();
+        Course[] dict = courses;
+        if (next == dict.length) dict = Arrays.copyOf(dict, dict.length * 2);
+        dict[next] = course;
+        courses = dict;
+        courseOrdinals.put(key, next);
+        return next;
+    }
+
+    private Chunk chunk(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        return chunks[row >>> CHUNK_BITS];
+    }
+
+    @Override
+    public int studentId(int row) { return chunk(row).student[row & CHUNK_MASK]; }
+
+    @Override
+    public Course course(int row) { return courses[chunk(row).course[row & CHUNK_MASK]]; }
+
+    @Override
+    public Semester semester(int row) { return SEMESTERS[chunk(row).semester[row & CHUNK_MASK]]; }
+
+    @Override
+    public Grade grade(int row) {
+        byte g = (byte) GRADE_COLUMN.getAcquire(chunk(row).grade, row & CHUNK_MASK);
+        return g == NO_GRADE ? null : GRADES[g];
+    }
+
+    @Override
+    public LocalDate enrollmentDate(int row) { return LocalDate.ofEpochDay(chunk(row).day[row & CHUNK_MASK]); }
+
+    @Override
+    public void setGrade(int row, Grade grade) {
+        GRADE_COLUMN.setRelease(chunk(row).grade, row & CHUNK_MASK, grade == null ? NO_GRADE : (byte) grade.ordinal());
+    }
+
+    @Override
+    public Enrollment get(int row) {
+        Chunk chunk = chunk(row);
+        int i = row & CHUNK_MASK;
+        Student s = students.apply(chunk.student[i]);
+        if (s == null) throw new IllegalStateException("Row " + row + " refers to unknown student " + chunk.student[i] + ".");
+        return new StoredEnrollment(this, row, s, courses[chunk.course[i]], SEMESTERS[chunk.semester[i]], LocalDate.ofEpochDay(chunk.day[i]));
+    }
+
+    /**
+     * Groups other than STUDENT depend only on the semester, the grade or the course, so the
+     * columns are scanned chunk by chunk into counters per (semester, grade or course, grade)
+     * and each counter is turned into its group's key once at the end.
+     */
+    @Override
+    public <K> Map<K, EnrollmentStats> aggregate(GroupBy<K> groupBy) {
+        boolean bySemester = groupBy == GroupBy.SEMESTER;
+        boolean byGrade = groupBy == GroupBy.GRADE;
+        if (!bySemester && !byGrade && !groupBy.isCourseLevel()) return EnrollmentStore.super.aggregate(groupBy);
+
+        int n = size; // read first: the dictionary and chunks then cover every row below it
+        Course[] dict = courses;
+        Chunk[] dir = chunks;
+        int[] creditsOf = new int[dict.length];
+        for (int o = 0; o < dict.length && dict[o] != null; o++) creditsOf[o] = dict[o].getCredits();
+
+        int grades = GRADES.length + 1; // slot 0 = no grade
+        int slots = bySemester ? SEMESTERS.length : byGrade ? grades : dict.length;
+        long[] counts = new long[slots * grades];
+        long[] credits = new long[slots * grades];
+        // Plain reads of the grade column: a grade set during the scan may or may not count
+        for (int c = 0; c * CHUNK_SIZE < n; c++) {
+            Chunk chunk = dir[c];
+            int rows = Math.min(CHUNK_SIZE, n - c * CHUNK_SIZE);
+            for (int i = 0; i < rows; i++) {
+                int g = chunk.grade[i] + 1;
+                int course = chunk.course[i];
+                int slot = bySemester ? chunk.semester[i] : byGrade ? g : course;
+                counts[slot * grades + g]++;
+                credits[slot * grades + g] += creditsOf[course];
+            }
+        }
+
+        return groups(groupBy, counts, credits, dict);
+    }
+
+    /**
+     * Turns the counters of a column scan into groups: counts and credits hold one entry per
+     * (slot, grade), grade 0 being "no grade", and a slot is a semester, a grade or a course
+     * ordinal into 'dict' depending on 'groupBy'.
+     */
+    static <K> Map<K, EnrollmentStats> groups(GroupBy<K> groupBy, long[] counts, long[] credits, Course[] dict) {
+        int grades = GRADES.length + 1;
+        int slots = counts.length / grades;
+        Map<K, EnrollmentStats> groups = new TreeMap<>(groupBy.getOrder());
+        for (int slot = 0; slot < slots; slot++) {
+            K key = null;
+            boolean keyed = false;
+            for (int g = 0; g < grades; g++) {
+                long count = counts[slot * grades + g];
+                if (count == 0) continue;
+                if (!keyed) {
+                    key = keyOfSlot(groupBy, slot, dict);
+                    keyed = true;
+                }
+                groups.computeIfAbsent(key, k -> new EnrollmentStats())
+                        .add(count, credits[slot * grades + g], g == 0 ? null : GRADES[g - 1]);
+            }
+        }
+        return groups;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> K keyOfSlot(GroupBy<K> groupBy, int slot, Course[] dict) {
+        if (groupBy == GroupBy.SEMESTER) return (K) SEMESTERS[slot];
+        if (groupBy == GroupBy.GRADE) return slot == 0 ? null : (K) GRADES[slot - 1];
+        return groupBy.keyOf(dict[slot]);
+    }
+
+    @Override
+    public List<Enrollment> asList() {
+        return new RowList();
+    }
+
+    private final class RowList extends AbstractList<Enrollment> implements RandomAccess {
+        @Override
+        public Enrollment get(int index) { return ColumnarEnrollmentStore.this.get(index); }
+
+        @Override
+        public int size() { return size; }
+    }
+}
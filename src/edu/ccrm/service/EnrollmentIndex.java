@@ -0,0 +1,349 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Enrollment index keyed by (student, semester).
+ * Each bucket holds the student's courses for that semester and a running credit total,
+ * so the duplicate and credit-limit checks in enrollStudent don't scan every enrollment.
+ *
+ * Buckets are immutable and swapped with compare-and-set, so reads never block and
+ * always see a consistent (courses, credits) pair.
+ *
+ * A second index keeps the roster of every (course, semester), for queries by course and
+ * for seat counting against the course's capacity.
+ */
+public class EnrollmentIndex {
+
+    /**
+     * The enrollments of one student in one semester (immutable).
+     * Courses are keyed by upper-cased code, which also gives the transcript its ordering.
+     */
+    public static final class SemesterLoad {
+        private static final SemesterLoad EMPTY = new SemesterLoad(new TreeMap<>(), 0);
+
+        private final TreeMap<String, Enrollment> byCourse;
+        private final int credits;
+
+        private SemesterLoad(TreeMap<String, Enrollment> byCourse, int credits) {
+            this.byCourse = byCourse;
+            this.credits = credits;
+        }
+
+        public boolean contains(String courseCode) { return byCourse.containsKey(Registry.codeKey(courseCode)); }
+        public Enrollment get(String courseCode) { return byCourse.get(Registry.codeKey(courseCode)); }
+        public int getCredits() { return credits; }
+        public int size() { return byCourse.size(); }
+        public Collection<Enrollment> getEnrollments() { return Collections.unmodifiableCollection(byCourse.values()); }
+
+        // Returns null if the course is already in this bucket
+        private SemesterLoad with(Enrollment e) {
+            String key = Registry.codeKey(e.getCourse().getCode());
+            if (byCourse.containsKey(key)) return null;
+            TreeMap<String, Enrollment> copy = new TreeMap<>(byCourse);
+            copy.put(key, e);
+            return new SemesterLoad(copy, credits + e.getCourse().getCredits());
+        }
+
+        // Returns null unless this very enrollment is in the bucket
+        private SemesterLoad without(Enrollment e) {
+            String key = Registry.codeKey(e.getCourse().getCode());
+            if (byCourse.get(key) != e) return null;
+            TreeMap<String, Enrollment> copy = new TreeMap<>(byCourse);
+            copy.remove(key);
+            return new SemesterLoad(copy, credits - e.getCourse().getCredits());
+        }
+    }
+
+    /**
+     * The enrollments of one course in one semester, in the order they were added, with the
+     * seats taken and the waitlist.
+     * Changes are serialized on the roster; readers never block and see the roster as it
+     * was at some moment. Appends fill the spare room of the array. A drop only counts a
+     * tombstone (the enrollment itself is marked dropped); once half the slots are dead the
+     * live ones are copied to a new array, so drops cost O(1) amortized.
+     * Seats are reserved with compare-and-set on a counter, so enrollments of different
+     * students in the same course never wait for each other; only the waitlist is locked.
+     */
+    public static final class Roster {
+        // Array, used slots and dropped slots from the same moment; the array may have room past 'size'
+        private static final class Entries {
+            final Enrollment[] items;
+            final int size;
+            final int dropped;
+
+            Entries(Enrollment[] items, int size, int dropped) {
+                this.items = items;
+                this.size = size;
+                this.dropped = dropped;
+            }
+        }
+
+        private volatile Entries entries = new Entries(new Enrollment[4], 0, 0);
+
+        private final AtomicInteger seatsTaken = new AtomicInteger();
+
+        // Student id -> student, in arrival order; guarded by itself
+        private final LinkedHashMap<Integer, Student> waitlist = new LinkedHashMap<>();
+        private volatile int waiting;
+
+        private synchronized void add(Enrollment e) {
+            Entries current = entries;
+            Enrollment[] a = current.items;
+            // Slots past 'size' are invisible to readers of this or any older Entries
+            if (current.size == a.length) a = Arrays.copyOf(a, a.length * 2);
+            a[current.size] = e;
+            entries = new Entries(a, current.size + 1, current.dropped); // volatile write publishes the element
+        }
+
+        // 'e' is already marked dropped
+        private synchronized void dropped(Enrollment e) {
+            Entries current = entries;
+            int dropped = current.dropped + 1;
+            if (dropped * 2 < current.size) {
+                entries = new Entries(current.items, current.size, dropped);
+                return;
+            }
+            Enrollment[] live = new Enrollment[Math.max(4, current.size - dropped)];
+            int n = 0;
+            for (int i = 0; i < current.size; i++) {
+                if (!current.items[i].isDropped()) live[n++] = current.items[i];
+            }
+            entries = new Entries(live, n, 0);
+        }
+
+        public int size() {
+            Entries current = entries;
+            return current.size - current.dropped;
+        }
+
+        public List<Enrollment> getEnrollments() {
+            Entries current = entries;
+            List<Enrollment> all = Arrays.asList(current.items).subList(0, current.size);
+            if (current.dropped == 0) return Collections.unmodifiableList(all);
+            return all.stream().filter(e -> !e.isDropped()).toList();
+        }
+
+        public int seatsTaken() { return seatsTaken.get(); }
+
+        /**
+         * @return the free seats under 'capacity', or Integer.MAX_VALUE for Course.UNLIMITED.
+         */
+        public int seatsRemaining(int capacity) {
+            return capacity == 0 ? Integer.MAX_VALUE : Math.max(0, capacity - seatsTaken.get());
+        }
+
+        /**
+         * Takes a seat if one is free under 'capacity' (0 = unlimited). Unless 'fromWaitlist',
+         * a seat is refused while students are waiting, so freed seats go to the waitlist first.
+         */
+        boolean tryReserve(int capacity, boolean fromWaitlist) {
+            if (!fromWaitlist && waiting > 0) return false;
+            while (true) {
+                int taken = seatsTaken.get();
+                if (capacity != 0 && taken >= capacity) return false;
+                if (seatsTaken.compareAndSet(taken, taken + 1)) return true;
+            }
+        }
+
+        /**
+         * Takes a seat like tryReserve, or else puts the student at the end of the waitlist, in
+         * one step. releaseSeat takes the same lock, so a seat freed meanwhile is either taken
+         * here or finds the student already waiting (and is then given out by the caller of
+         * releaseSeat), never left free next to a waiting student.
+         * @return 0 if a seat was taken, else the student's 1-based waitlist position.
+         */
+        int reserveOrWait(int capacity, Student s) {
+            if (tryReserve(capacity, false)) return 0;
+            synchronized (waitlist) {
+                if (tryReserve(capacity, false)) return 0;
+                return joinWaitlist(s);
+            }
+        }
+
+        // Whoever releases a seat must then offer it to the waitlist (CCRMService.promoteWaitlisted)
+        void releaseSeat() {
+            synchronized (waitlist) {
+                seatsTaken.decrementAndGet();
+            }
+        }
+
+        /**
+         * Puts a student at the end of the waitlist (or leaves them where they are).
+         * @return their 1-based position.
+         */
+        int joinWaitlist(Student s) {
+            synchronized (waitlist) {
+                waitlist.putIfAbsent(s.getId(), s);
+                waiting = waitlist.size();
+                int position = 1;
+                for (Integer id : waitlist.keySet()) {
+                    if (id == s.getId()) break;
+                    position++;
+                }
+                return position;
+            }
+        }
+
+        // The first waiting student, removed from the waitlist; null if nobody waits
+        Student pollWaitlist() {
+            synchronized (waitlist) {
+                if (waitlist.isEmpty()) return null;
+                Integer first = waitlist.keySet().iterator().next();
+                Student s = waitlist.remove(first);
+                waiting = waitlist.size();
+                return s;
+            }
+        }
+
+        boolean leaveWaitlist(int studentId) {
+            synchronized (waitlist) {
+                boolean removed = waitlist.remove(studentId) != null;
+                waiting = waitlist.size();
+                return removed;
+            }
+        }
+
+        public int waitlistSize() { return waiting; }
+
+        public List<Student> getWaitlist() {
+            synchronized (waitlist) {
+                return List.copyOf(waitlist.values());
+            }
+        }
+    }
+
+    // studentId -> one bucket per semester (indexed by Semester.ordinal())
+    private final Map<Integer, AtomicReferenceArray<SemesterLoad>> byStudent = new ConcurrentHashMap<>();
+
+    // Course id -> one roster per semester
+    private final Map<Integer, Roster[]> byCourse = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes an enrollment, counting its seat on the roster whatever the capacity
+     * (loaded data is taken as it is).
+     * @return false if the student already has this course in the same semester.
+     */
+    public boolean add(Enrollment e) {
+        return add(e, false);
+    }
+
+    /**
+     * Indexes an enrollment.
+     * @param seatReserved true if the seat was already taken with Roster.tryReserve.
+     * @return false if the student already has this course in the same semester
+     *         (a reserved seat is then still taken; the caller releases it).
+     */
+    boolean add(Enrollment e, boolean seatReserved) {
+        AtomicReferenceArray<SemesterLoad> semesters = byStudent.computeIfAbsent(e.getStudent().getId(),
+                id -> new AtomicReferenceArray<>(Semester.values().length));
+        int slot = e.getSemester().ordinal();
+        while (true) {
+            SemesterLoad current = semesters.get(slot);
+            SemesterLoad next = (current == null ? SemesterLoad.EMPTY : current).with(e);
+            if (next == null) return false;
+            if (semesters.compareAndSet(slot, current, next)) break;
+        }
+        Roster roster = rosterFor(e.getCourse(), e.getSemester());
+        if (!seatReserved) roster.seatsTaken.incrementAndGet();
+        roster.add(e);
+        return true;
+    }
+
+    private static Roster[] newRosters() {
+        Roster[] rosters = new Roster[Semester.values().length];
+        for (int i = 0; i < rosters.length; i++) rosters[i] = new Roster();
+        return rosters;
+    }
+
+    public void clear() {
+        byStudent.clear();
+        byCourse.clear();
+    }
+
+    /**
+     * Removes an enrollment from both indexes, marks it dropped and gives back its seat.
+     * @return false if this enrollment is not indexed (e.g. already dropped).
+     */
+    public boolean remove(Enrollment e) {
+        AtomicReferenceArray<SemesterLoad> semesters = byStudent.get(e.getStudent().getId());
+        if (semesters == null) return false;
+        int slot = e.getSemester().ordinal();
+        while (true) {
+            SemesterLoad current = semesters.get(slot);
+            SemesterLoad next = current == null ? null : current.without(e);
+            if (next == null) return false;
+            if (semesters.compareAndSet(slot, current, next)) break;
+        }
+        e.markDropped();
+        Roster roster = roster(e.getCourse(), e.getSemester());
+        if (roster != null) {
+            roster.dropped(e);
+            roster.releaseSeat();
+        }
+        return true;
+    }
+
+    // The roster, created if needed (e.g. to reserve the first seat)
+    Roster rosterFor(Course c, Semester sem) {
+        if (c.getId() == 0) throw new IllegalArgumentException("Course " + c.getCode() + " is not registered.");
+        return byCourse.computeIfAbsent(c.getId(), k -> newRosters())[sem.ordinal()];
+    }
+
+    /**
+     * @return the course's roster for the semester, or null if nobody ever enrolled or waited in it.
+     */
+    public Roster roster(Course c, Semester sem) {
+        Roster[] rosters = byCourse.get(c.getId());
+        return rosters == null ? null : rosters[sem.ordinal()];
+    }
+
+    /**
+     * @return the student's load for the semester, or null if they have no enrollments in it.
+     */
+    public SemesterLoad get(int studentId, Semester sem) {
+        AtomicReferenceArray<SemesterLoad> semesters = byStudent.get(studentId);
+        return semesters == null ? null : semesters.get(sem.ordinal());
+    }
+
+    public boolean isEnrolled(int studentId, String courseCode, Semester sem) {
+        SemesterLoad load = get(studentId, sem);
+        return load != null && load.contains(courseCode);
+    }
+
+    public int creditsFor(int studentId, Semester sem) {
+        SemesterLoad load = get(studentId, sem);
+        return load == null ? 0 : load.getCredits();
+    }
+
+    /**
+     * All enrollments of a student, ordered by semester and then course code.
+     */
+    public List<Enrollment> transcript(int studentId) {
+        AtomicReferenceArray<SemesterLoad> semesters = byStudent.get(studentId);
+        if (semesters == null) return Collections.emptyList();
+
+        List<Enrollment> result = new ArrayList<>();
+        // Slots follow declaration order (SPRING, SUMMER, FALL)
+        for (int i = 0; i < semesters.length(); i++) {
+            SemesterLoad load = semesters.get(i);
+            if (load != null) result.addAll(load.byCourse.values());
+        }
+        return result;
+    }
+}
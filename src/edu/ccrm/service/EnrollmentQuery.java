@@ -0,0 +1,194 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An immutable query over enrollments: filters, an optional order and a limit.
+ * Build one with {@link Builder} and run it with CCRMService.query, aggregate or explain.
+ *
+ * The typed filters (student, course, department, instructor, semester, grade, credits)
+ * are visible to the planner, which answers them from an index where one applies.
+ * {@link Builder#where} adds any other condition; it is opaque and checked row by row.
+ * Every filter must hold for an enrollment to match.
+ */
+public final class EnrollmentQuery {
+
+    // null means "any"
+    private final Set<Integer> studentIds;
+    private final Set<String> courseCodes;   // upper-cased
+    private final String department;
+    private final Integer instructorId;
+    private final Set<Semester> semesters;
+    private final Grade lowestGrade;
+    private final Grade highestGrade;
+    private final boolean ungradedOnly;
+    private final int minCredits;
+    private final int maxCredits;
+    private final Predicate<Enrollment> where;
+    private final Comparator<Enrollment> order;
+    private final int limit;
+
+    private EnrollmentQuery(Builder b) {
+        this.studentIds = b.studentIds == null ? null : Collections.unmodifiableSet(b.studentIds);
+        this.courseCodes = b.courseCodes == null ? null : Collections.unmodifiableSet(b.courseCodes);
+        this.department = b.department;
+        this.instructorId = b.instructorId;
+        this.semesters = b.semesters == null ? null : Collections.unmodifiableSet(b.semesters);
+        this.lowestGrade = b.lowestGrade;
+        this.highestGrade = b.highestGrade;
+        this.ungradedOnly = b.ungradedOnly;
+        this.minCredits = b.minCredits;
+        this.maxCredits = b.maxCredits;
+        this.where = b.where;
+        this.order = b.order;
+        this.limit = b.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Set<Integer> studentIds;
+        private Set<String> courseCodes;
+        private String department;
+        private Integer instructorId;
+        private Set<Semester> semesters;
+        private Grade lowestGrade;
+        private Grade highestGrade;
+        private boolean ungradedOnly;
+        private int minCredits = 0;
+        private int maxCredits = Integer.MAX_VALUE;
+        private Predicate<Enrollment> where;
+        private Comparator<Enrollment> order;
+        private int limit = Integer.MAX_VALUE;
+
+        /**
+         * Only enrollments of these students.
+         */
+        public Builder students(Integer... ids) {
+            this.studentIds = new LinkedHashSet<>(Arrays.asList(ids));
+            return this;
+        }
+
+        /**
+         * Only enrollments in these courses (codes are case-insensitive).
+         */
+        public Builder courses(String... codes) {
+            this.courseCodes = new LinkedHashSet<>();
+            for (String code : codes) courseCodes.add(Registry.codeKey(code));
+            return this;
+        }
+
+        /**
+         * Only courses of this department (case-insensitive).
+         */
+        public Builder department(String department) {
+            this.department = department;
+            return this;
+        }
+
+        /**
+         * Only courses currently assigned to this instructor.
+         */
+        public Builder instructor(int instructorId) {
+            this.instructorId = instructorId;
+            return this;
+        }
+
+        public Builder semesters(Semester... semesters) {
+            this.semesters = semesters.length == 0 ? EnumSet.noneOf(Semester.class) : EnumSet.copyOf(Arrays.asList(semesters));
+            return this;
+        }
+
+        /**
+         * Only graded enrollments whose grade is between the two, inclusive, by point value
+         * (e.g. gradeBetween(Grade.C, Grade.S)).
+         */
+        public Builder gradeBetween(Grade lowest, Grade highest) {
+            if (lowest == null || highest == null || lowest.getPointValue() > highest.getPointValue()) {
+                throw new IllegalArgumentException("Grade range must go from the lower to the higher grade.");
+            }
+            this.lowestGrade = lowest;
+            this.highestGrade = highest;
+            return this;
+        }
+
+        /**
+         * Only enrollments without a grade yet.
+         */
+        public Builder ungraded() {
+            this.ungradedOnly = true;
+            return this;
+        }
+
+        /**
+         * Only courses worth between min and max credits, inclusive.
+         */
+        public Builder credits(int min, int max) {
+            if (min > max) throw new IllegalArgumentException("Minimum credits exceed the maximum.");
+            this.minCredits = min;
+            this.maxCredits = max;
+            return this;
+        }
+
+        /**
+         * Adds a condition the planner can't see into; combined with any earlier one.
+         */
+        public Builder where(Predicate<Enrollment> condition) {
+            this.where = this.where == null ? condition : this.where.and(condition);
+            return this;
+        }
+
+        public Builder orderBy(Comparator<Enrollment> order) {
+            this.order = order;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 0) throw new IllegalArgumentException("Limit must not be negative.");
+            this.limit = limit;
+            return this;
+        }
+
+        public EnrollmentQuery build() {
+            if (ungradedOnly && lowestGrade != null) {
+                throw new IllegalArgumentException("A query can't ask for ungraded enrollments and a grade range.");
+            }
+            return new EnrollmentQuery(this);
+        }
+    }
+
+    // --- Getters (used by the planner) ---
+    public Set<Integer> getStudentIds() { return studentIds; }
+    public Set<String> getCourseCodes() { return courseCodes; }
+    public String getDepartment() { return department; }
+    public Integer getInstructorId() { return instructorId; }
+    public Set<Semester> getSemesters() { return semesters; }
+    public Grade getLowestGrade() { return lowestGrade; }
+    public Grade getHighestGrade() { return highestGrade; }
+    public boolean isUngradedOnly() { return ungradedOnly; }
+    public int getMinCredits() { return minCredits; }
+    public int getMaxCredits() { return maxCredits; }
+    public Predicate<Enrollment> getWhere() { return where; }
+    public Comparator<Enrollment> getOrder() { return order; }
+    public int getLimit() { return limit; }
+
+    boolean hasCourseFilter() {
+        return courseCodes != null || department != null || instructorId != null;
+    }
+
+    boolean hasCreditFilter() {
+        return minCredits > 0 || maxCredits < Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Semester;
+
+/**
+ * One (student, course, semester) registration request, as submitted to enrollBatch.
+ * Courses are referenced by code so requests can come straight from a file.
+ */
+public final class EnrollmentRequest {
+
+    private final int studentId;
+    private final String courseCode;
+    private final Semester semester;
+
+    public EnrollmentRequest(int studentId, String courseCode, Semester semester) {
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.semester = semester;
+    }
+
+    public int getStudentId() { return studentId; }
+    public String getCourseCode() { return courseCode; }
+    public Semester getSemester() { return semester; }
+
+    @Override
+    public String toString() {
+        return String.format("%d,%s,%s", studentId, courseCode, semester);
+    }
+}
@@ -0,0 +1,67 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+
+/**
+ * Totals over a group of enrollments: how many, their credits, and the credit-weighted
+ * GPA of the graded ones (the same rule as a student's GPA).
+ * Filled in by the query engine; immutable once returned.
+ */
+public final class EnrollmentStats {
+    private long count;
+    private long credits;
+    private long graded;
+    private long gradedCredits;
+    private long gradePoints;
+
+    EnrollmentStats() {}
+
+    void add(Enrollment e) {
+        add(e.getCourse().getCredits(), e.getGrade());
+    }
+
+    void add(int c, Grade g) {
+        count++;
+        credits += c;
+        if (g != null) {
+            graded++;
+            gradedCredits += c;
+            gradePoints += (long) g.getPointValue() * c;
+        }
+    }
+
+    // 'n' enrollments with the same grade, worth 'c' credits together
+    void add(long n, long c, Grade g) {
+        count += n;
+        credits += c;
+        if (g != null) {
+            graded += n;
+            gradedCredits += c;
+            gradePoints += g.getPointValue() * c;
+        }
+    }
+
+    EnrollmentStats merge(EnrollmentStats other) {
+        count += other.count;
+        credits += other.credits;
+        graded += other.graded;
+        gradedCredits += other.gradedCredits;
+        gradePoints += other.gradePoints;
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public long getCredits() { return credits; }
+    public long getGraded() { return graded; }
+    public long getGradedCredits() { return gradedCredits; }
+
+    public double getGpa() {
+        return gradedCredits > 0 ? (double) gradePoints / gradedCredits : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d enrollments | %d credits | %d graded | GPA %.2f", count, credits, graded, getGpa());
+    }
+}
@@ -0,0 +1,66 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only storage for enrollment rows, addressed by row number (0-based, in the order
+ * the rows were added). Only the grade of a row can change.
+ *
+ * The fields of a row can be read one by one, which lets a store keep rows in whatever
+ * layout it likes; get() hands out an Enrollment for code that needs one. Appending and
+ * reading may happen concurrently.
+ */
+public interface EnrollmentStore {
+
+    int size();
+
+    /**
+     * Appends a row.
+     * @return its row number.
+     */
+    int add(int studentId, Course course, Semester semester, Grade grade, LocalDate enrollmentDate);
+
+    default int add(Enrollment e) {
+        return add(e.getStudent().getId(), e.getCourse(), e.getSemester(), e.getGrade(), e.getEnrollmentDate());
+    }
+
+    int studentId(int row);
+    Course course(int row);
+    Semester semester(int row);
+    /** null if the row has no grade yet. */
+    Grade grade(int row);
+    LocalDate enrollmentDate(int row);
+
+    void setGrade(int row, Grade grade);
+
+    /**
+     * The row as an Enrollment. Stores that don't hold objects build one on each call.
+     */
+    Enrollment get(int row);
+
+    /**
+     * A read-only List view of the rows (get() per element), e.g. for export or queries.
+     */
+    List<Enrollment> asList();
+
+    /**
+     * Totals per group over all rows, read field by field without building Enrollments.
+     */
+    default <K> Map<K, EnrollmentStats> aggregate(GroupBy<K> groupBy) {
+        Map<K, EnrollmentStats> groups = new TreeMap<>(groupBy.getOrder());
+        int n = size();
+        for (int row = 0; row < n; row++) {
+            groups.computeIfAbsent(groupBy.keyOf(this, row), k -> new EnrollmentStats())
+                    .add(course(row).getCredits(), grade(row));
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * How CCRMService.aggregate groups enrollments, with the key type and the order of the groups.
+ * A null key (no grade yet, no instructor assigned) forms its own group, listed last.
+ */
+public final class GroupBy<K> {
+
+    public static final GroupBy<Semester> SEMESTER = new GroupBy<>("semester",
+            Enrollment::getSemester, EnrollmentStore::semester, Comparator.<Semester>naturalOrder());
+    public static final GroupBy<String> COURSE = new GroupBy<>("course",
+            c -> Registry.codeKey(c.getCode()), Comparator.<String>naturalOrder());
+    public static final GroupBy<String> DEPARTMENT = new GroupBy<>("department",
+            Course::getDepartment, Comparator.<String>naturalOrder());
+    public static final GroupBy<String> INSTRUCTOR = new GroupBy<>("instructor", c -> {
+        Instructor i = c.getInstructor();
+        return i == null ? null : i.getFullName();
+    }, Comparator.<String>naturalOrder());
+    // Best grade first
+    public static final GroupBy<Grade> GRADE = new GroupBy<>("grade",
+            Enrollment::getGrade, EnrollmentStore::grade, Comparator.<Grade>naturalOrder());
+    public static final GroupBy<Integer> STUDENT = new GroupBy<>("student",
+            e -> e.getStudent().getId(), EnrollmentStore::studentId, Comparator.<Integer>naturalOrder());
+
+    // The key of a stored row, read from the store's fields
+    private interface RowKey<K> {
+        K of(EnrollmentStore store, int row);
+    }
+
+    private final String name;
+    private final Function<Enrollment, K> key;
+    private final RowKey<K> rowKey;
+    private final Function<Course, K> courseKey; // null unless the key depends on the course alone
+    private final Comparator<K> order;
+
+    private GroupBy(String name, Function<Enrollment, K> key, RowKey<K> rowKey, Comparator<K> order) {
+        this.name = name;
+        this.key = key;
+        this.rowKey = rowKey;
+        this.courseKey = null;
+        this.order = Comparator.nullsLast(order);
+    }
+
+    private GroupBy(String name, Function<Course, K> courseKey, Comparator<K> order) {
+        this.name = name;
+        this.key = e -> courseKey.apply(e.getCourse());
+        this.rowKey = (store, row) -> courseKey.apply(store.course(row));
+        this.courseKey = courseKey;
+        this.order = Comparator.nullsLast(order);
+    }
+
+    public String getName() { return name; }
+    public K keyOf(Enrollment e) { return key.apply(e); }
+    public K keyOf(EnrollmentStore store, int row) { return rowKey.of(store, row); }
+    public Comparator<K> getOrder() { return order; }
+
+    // Stores can group by course first and map each course to its key once
+    boolean isCourseLevel() { return courseKey != null; }
+    K keyOf(Course c) { return courseKey.apply(c); }
+
+    @Override
+    public String toString() { return name; }
+}
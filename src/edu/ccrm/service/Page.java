@@ -0,0 +1,45 @@
+package edu.ccrm.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a listing, in the list's stable (insertion) order.
+ * Pass getNextCursor() to the same listing method to get the following page; it is null
+ * once the listing is exhausted.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final int[] positions;
+    private final String nextCursor;
+    private final int scanned;
+    private final int total;
+
+    Page(List<T> items, int[] positions, String nextCursor, int scanned, int total) {
+        this.items = Collections.unmodifiableList(items);
+        this.positions = positions;
+        this.nextCursor = nextCursor;
+        this.scanned = scanned;
+        this.total = total;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+    public boolean isEmpty() { return items.isEmpty(); }
+
+    /**
+     * @return the 0-based position in the full list of the i-th item on this page.
+     */
+    public int getPosition(int i) { return positions[i]; }
+
+    /**
+     * @return how far into the full list this page reached (0-based, exclusive).
+     */
+    public int getScanned() { return scanned; }
+
+    /**
+     * @return the size of the full list (unfiltered) when the page was read.
+     */
+    public int getTotal() { return total; }
+}
@@ -0,0 +1,68 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cursor pagination over the service's lists, which only ever grow at the end (or are
+ * cleared), so a position stays valid and the order is stable.
+ *
+ * A cursor holds the position to resume from and a hash of the key of the item just before
+ * it; if that item changed (the list was replaced) the cursor is rejected rather than
+ * silently skipping or repeating rows. Only the page's elements are copied, and a filtered
+ * page stops after MAX_SCAN rows so a rare match can't stall the caller; it may then come
+ * back short (even empty) with a cursor to continue.
+ */
+final class Pager {
+
+    static final int MAX_SCAN = 100_000;
+    static final int MAX_PAGE_SIZE = 10_000;
+
+    private Pager() {}
+
+    static <T> Page<T> page(List<T> list, String cursor, int pageSize,
+                            Predicate<? super T> filter, Function<T, Object> key) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        int total = list.size();
+        int from = cursor == null ? 0 : resume(list, cursor, total, key);
+
+        List<T> items = new ArrayList<>(Math.min(pageSize, total - from));
+        int[] positions = new int[Math.min(pageSize, total - from)];
+        int pos = from;
+        int scanLimit = filter == null ? total : (int) Math.min(total, (long) from + MAX_SCAN);
+        while (pos < scanLimit && items.size() < pageSize) {
+            T item = list.get(pos);
+            if (filter == null || filter.test(item)) {
+                positions[items.size()] = pos;
+                items.add(item);
+            }
+            pos++;
+        }
+        String next = pos < total ? cursorFor(pos, list.get(pos - 1), key) : null;
+        return new Page<>(items, Arrays.copyOf(positions, items.size()), next, pos, total);
+    }
+
+    private static <T> String cursorFor(int pos, T before, Function<T, Object> key) {
+        return Integer.toString(pos, 36) + "." + Integer.toHexString(Objects.hashCode(key.apply(before)));
+    }
+
+    private static <T> int resume(List<T> list, String cursor, int total, Function<T, Object> key) {
+        int dot = cursor.indexOf('.');
+        int pos;
+        try {
+            pos = Integer.parseInt(cursor.substring(0, Math.max(dot, 0)), 36);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed page cursor: " + cursor);
+        }
+        if (pos < 1 || pos > total || !cursorFor(pos, list.get(pos - 1), key).equals(cursor)) {
+            throw new IllegalArgumentException("The list changed since this page cursor was issued; start from the first page.");
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,259 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Plans and runs EnrollmentQuery objects.
+ *
+ * Course-level filters (codes, department, instructor, credits) are first resolved against
+ * the course list, which is small next to the enrollments. The planner then estimates how
+ * many rows each usable index would read (from the index sizes, without reading rows):
+ * the students' (student, semester) buckets, or the matching courses' rosters. The smaller
+ * one wins if it reads less than half the enrollments; otherwise every enrollment is
+ * scanned, in parallel once there are at least ccrm.query.parallelMinRows of them.
+ * Filters the chosen index already guarantees are dropped; the rest run on each row.
+ */
+class QueryEngine {
+
+    private final List<Enrollment> enrollments;
+    private final List<Course> courses;
+    private final EnrollmentIndex index;
+    private final IntSupplier parallelMinRows;
+
+    QueryEngine(List<Enrollment> enrollments, List<Course> courses, EnrollmentIndex index, IntSupplier parallelMinRows) {
+        this.enrollments = enrollments;
+        this.courses = courses;
+        this.index = index;
+        this.parallelMinRows = parallelMinRows;
+    }
+
+    // A plan plus what's needed to run it
+    private static final class Prepared {
+        QueryPlan plan;
+        Stream<Enrollment> source;
+        Predicate<Enrollment> filter;
+        boolean parallel;
+    }
+
+    QueryPlan explain(EnrollmentQuery q) {
+        return prepare(q).plan;
+    }
+
+    List<Enrollment> run(EnrollmentQuery q) {
+        if (q.getLimit() == 0) return List.of();
+        Prepared p = prepare(q);
+        Stream<Enrollment> rows = p.source.filter(p.filter);
+        Comparator<Enrollment> order = q.getOrder();
+        int limit = q.getLimit();
+        if (order != null && limit != Integer.MAX_VALUE) return rows.collect(topN(order, limit));
+        if (order != null) return rows.sorted(order).toList();
+        if (limit != Integer.MAX_VALUE) {
+            // Without an order any 'limit' matches will do, so parallel workers needn't agree on which
+            return (p.parallel ? rows.unordered() : rows).limit(limit).toList();
+        }
+        return rows.toList();
+    }
+
+    /**
+     * Groups the matching enrollments; the query's order and limit are not used.
+     */
+    <K> Map<K, EnrollmentStats> aggregate(EnrollmentQuery q, GroupBy<K> groupBy) {
+        Prepared p = prepare(q);
+        Map<K, EnrollmentStats> groups = p.source.filter(p.filter).collect(HashMap::new,
+                (m, e) -> m.computeIfAbsent(groupBy.keyOf(e), k -> new EnrollmentStats()).add(e),
+                (a, b) -> b.forEach((k, stats) -> a.merge(k, stats, EnrollmentStats::merge)));
+        Map<K, EnrollmentStats> sorted = new TreeMap<>(groupBy.getOrder());
+        sorted.putAll(groups);
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    // --- Planning ---
+
+    private Prepared prepare(EnrollmentQuery q) {
+        // Fix the rows visible to this query (the list is append-only)
+        List<Enrollment> all = enrollments.subList(0, enrollments.size());
+        long total = all.size();
+        Set<Semester> semesters = q.getSemesters() == null ? EnumSet.allOf(Semester.class) : q.getSemesters();
+        List<String> filters = new ArrayList<>();
+        Prepared p = new Prepared();
+
+        boolean courseFilter = q.hasCourseFilter() || q.hasCreditFilter();
+        Set<Course> matchingCourses = courseFilter ? matchingCourses(q) : null;
+
+        long studentRows = q.getStudentIds() == null ? -1 : studentRows(q.getStudentIds(), semesters);
+        long courseRows = matchingCourses == null ? -1 : courseRows(matchingCourses, semesters);
+        boolean useStudents = studentRows >= 0 && studentRows * 2 < total
+                && (courseRows < 0 || studentRows <= courseRows);
+        boolean useCourses = !useStudents && courseRows >= 0 && courseRows * 2 < total;
+
+        QueryPlan.Access access;
+        String detail;
+        long rowsRead;
+        if (useStudents) {
+            access = QueryPlan.Access.STUDENT_INDEX;
+            detail = q.getStudentIds().size() + " student(s) x " + semesterList(semesters);
+            rowsRead = studentRows;
+            p.source = q.getStudentIds().stream().flatMap(id -> semesters.stream().flatMap(sem -> {
+                EnrollmentIndex.SemesterLoad load = index.get(id, sem);
+                return load == null ? Stream.empty() : load.getEnrollments().stream();
+            }));
+        } else if (useCourses) {
+            access = QueryPlan.Access.COURSE_INDEX;
+            detail = matchingCourses.size() + " course(s) x " + semesterList(semesters);
+            rowsRead = courseRows;
+            p.source = matchingCourses.stream().flatMap(c -> semesters.stream().flatMap(sem -> {
+                EnrollmentIndex.Roster roster = index.roster(c, sem);
+                return roster == null ? Stream.empty() : roster.getEnrollments().stream();
+            }));
+        } else {
+            p.parallel = total >= parallelMinRows.getAsInt();
+            access = p.parallel ? QueryPlan.Access.PARALLEL_SCAN : QueryPlan.Access.FULL_SCAN;
+            detail = "";
+            rowsRead = total;
+            p.source = p.parallel ? all.parallelStream() : all.stream();
+        }
+
+        // Whatever the access path doesn't guarantee is checked per row
+        List<Predicate<Enrollment>> checks = new ArrayList<>();
+        if (q.getStudentIds() != null && !useStudents) {
+            Set<Integer> ids = q.getStudentIds();
+            checks.add(e -> ids.contains(e.getStudent().getId()));
+            filters.add("student in " + ids);
+        }
+        if (q.getSemesters() != null && access != QueryPlan.Access.STUDENT_INDEX && access != QueryPlan.Access.COURSE_INDEX) {
+            checks.add(e -> semesters.contains(e.getSemester()));
+            filters.add("semester in " + semesterList(semesters));
+        }
+        if (matchingCourses != null && !useCourses) {
+            BitSet ids = new BitSet();
+            for (Course c : matchingCourses) ids.set(c.getId());
+            checks.add(e -> ids.get(e.getCourse().getId()));
+            filters.add("course in " + matchingCourses.size() + " matching course(s) [" + courseFilterText(q) + "]");
+        }
+        if (q.isUngradedOnly()) {
+            checks.add(e -> e.getGrade() == null);
+            filters.add("ungraded");
+        }
+        if (q.getLowestGrade() != null) {
+            int lo = q.getLowestGrade().getPointValue(), hi = q.getHighestGrade().getPointValue();
+            checks.add(e -> {
+                Grade g = e.getGrade();
+                return g != null && g.getPointValue() >= lo && g.getPointValue() <= hi;
+            });
+            filters.add("grade " + q.getLowestGrade() + ".." + q.getHighestGrade());
+        }
+        if (q.getWhere() != null) {
+            checks.add(q.getWhere());
+            filters.add("where(custom predicate)");
+        }
+        p.filter = e -> {
+            // Dropped enrollments stay in the list as tombstones (and may be caught mid-drop in an index)
+            if (e.isDropped()) return false;
+            for (Predicate<Enrollment> c : checks) {
+                if (!c.test(e)) return false;
+            }
+            return true;
+        };
+
+        String order = q.getOrder() == null ? "none"
+                : q.getLimit() != Integer.MAX_VALUE ? "custom, top " + q.getLimit() + " kept in a bounded heap" : "custom, full sort";
+        p.plan = new QueryPlan(access, detail, rowsRead, total, filters, order, q.getLimit());
+        return p;
+    }
+
+    private long studentRows(Set<Integer> ids, Set<Semester> semesters) {
+        long n = 0;
+        for (int id : ids) {
+            for (Semester sem : semesters) {
+                EnrollmentIndex.SemesterLoad load = index.get(id, sem);
+                if (load != null) n += load.size();
+            }
+        }
+        return n;
+    }
+
+    private long courseRows(Set<Course> matching, Set<Semester> semesters) {
+        long n = 0;
+        for (Course c : matching) {
+            for (Semester sem : semesters) {
+                EnrollmentIndex.Roster roster = index.roster(c, sem);
+                if (roster != null) n += roster.size();
+            }
+        }
+        return n;
+    }
+
+    // Courses passing every course-level filter
+    private Set<Course> matchingCourses(EnrollmentQuery q) {
+        Set<Course> result = new LinkedHashSet<>();
+        String dept = q.getDepartment() == null ? null : q.getDepartment().trim();
+        for (Course c : courses) {
+            if (q.getCourseCodes() != null && !q.getCourseCodes().contains(Registry.codeKey(c.getCode()))) continue;
+            if (dept != null && (c.getDepartment() == null || !c.getDepartment().trim().equalsIgnoreCase(dept))) continue;
+            if (q.getInstructorId() != null
+                    && (c.getInstructor() == null || c.getInstructor().getId() != q.getInstructorId())) continue;
+            if (c.getCredits() < q.getMinCredits() || c.getCredits() > q.getMaxCredits()) continue;
+            result.add(c);
+        }
+        return result;
+    }
+
+    private static String courseFilterText(EnrollmentQuery q) {
+        List<String> parts = new ArrayList<>();
+        if (q.getCourseCodes() != null) parts.add("code in " + q.getCourseCodes());
+        if (q.getDepartment() != null) parts.add("department = " + q.getDepartment().trim().toUpperCase(Locale.ROOT));
+        if (q.getInstructorId() != null) parts.add("instructor = " + q.getInstructorId());
+        if (q.hasCreditFilter()) {
+            parts.add("credits " + q.getMinCredits() + ".."
+                    + (q.getMaxCredits() == Integer.MAX_VALUE ? "" : String.valueOf(q.getMaxCredits())));
+        }
+        return String.join(", ", parts);
+    }
+
+    private static String semesterList(Set<Semester> semesters) {
+        return semesters.size() == Semester.values().length ? "all semesters" : semesters.toString();
+    }
+
+    // The n smallest elements by 'order', sorted; each worker keeps its own heap of n
+    private static Collector<Enrollment, ?, List<Enrollment>> topN(Comparator<Enrollment> order, int n) {
+        return Collector.of(
+                () -> new PriorityQueue<>(order.reversed()),
+                (heap, e) -> {
+                    heap.add(e);
+                    if (heap.size() > n) heap.poll();
+                },
+                (a, b) -> {
+                    for (Enrollment e : b) {
+                        a.add(e);
+                        if (a.size() > n) a.poll();
+                    }
+                    return a;
+                },
+                heap -> {
+                    List<Enrollment> result = new ArrayList<>(heap);
+                    result.sort(order);
+                    return Collections.unmodifiableList(result);
+                });
+    }
+}
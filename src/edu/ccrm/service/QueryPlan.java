@@ -0,0 +1,57 @@
+package edu.ccrm.service;
+
+import java.util.List;
+
+/**
+ * How the query engine answers an EnrollmentQuery: where the candidate rows come from,
+ * how many it expects to read, and what is still checked row by row.
+ * Returned by CCRMService.explain; toString() is the human-readable explain output.
+ */
+public final class QueryPlan {
+
+    public enum Access {
+        /** Reads only the listed students' enrollments from the (student, semester) index. */
+        STUDENT_INDEX,
+        /** Reads only the rosters of the matching courses from the (course, semester) index. */
+        COURSE_INDEX,
+        /** Reads every enrollment on the calling thread. */
+        FULL_SCAN,
+        /** Reads every enrollment with a parallel stream (large data, no usable index). */
+        PARALLEL_SCAN
+    }
+
+    private final Access access;
+    private final String detail;
+    private final long rowsRead;
+    private final long totalRows;
+    private final List<String> filters;
+    private final String order;
+    private final int limit;
+
+    QueryPlan(Access access, String detail, long rowsRead, long totalRows,
+              List<String> filters, String order, int limit) {
+        this.access = access;
+        this.detail = detail;
+        this.rowsRead = rowsRead;
+        this.totalRows = totalRows;
+        this.filters = List.copyOf(filters);
+        this.order = order;
+        this.limit = limit;
+    }
+
+    public Access getAccess() { return access; }
+    public long getRowsRead() { return rowsRead; }
+    public long getTotalRows() { return totalRows; }
+    public List<String> getFilters() { return filters; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Access: %s%s%n", access, detail.isEmpty() ? "" : " (" + detail + ")"));
+        sb.append(String.format("Rows:   reads %,d of %,d enrollments%n", rowsRead, totalRows));
+        sb.append(String.format("Filter: %s%n", filters.isEmpty() ? "none" : String.join(", ", filters)));
+        sb.append(String.format("Order:  %s%n", order));
+        sb.append(String.format("Limit:  %s%n", limit == Integer.MAX_VALUE ? "none" : String.valueOf(limit)));
+        return sb.toString();
+    }
+}
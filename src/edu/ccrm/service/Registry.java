@@ -0,0 +1,296 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry that keeps primary-key indexes next to the data lists.
+ * Students and instructors are indexed by id and email, courses by their
+ * (case-insensitive) code and by id, so lookups no longer scan the whole list.
+ * The next-id counters are tracked here instead of recomputing max()+1.
+ *
+ * Courses keep the id they were loaded with; a course registered without one is given
+ * the next free id. Course ids are dense, so they index a plain array.
+ *
+ * Lookups are lock-free (concurrent maps); mutations are serialized on the registry
+ * so the check-then-add of ids/emails/codes is atomic. Text search indexes over names,
+ * emails, codes and titles are kept up to date the same way.
+ */
+public class Registry {
+
+    // The ordered lists remain the source of truth for listing/exporting
+    private final List<Student> students;
+    private final List<Instructor> instructors;
+    private final List<Course> courses;
+
+    // Primary-key indexes
+    private final Map<Integer, Student> studentsById = new ConcurrentHashMap<>();
+    private final Map<String, Student> studentsByEmail = new ConcurrentHashMap<>();
+    private final Map<Integer, Instructor> instructorsById = new ConcurrentHashMap<>();
+    private final Map<String, Instructor> instructorsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Course> coursesByCode = new ConcurrentHashMap<>();
+    // Slot 0 is unused; copied to a larger array when an id doesn't fit, like the list arrays
+    private volatile Course[] coursesById = new Course[64];
+
+    // Text search: courses by code and title, people by name and email (user part only,
+    // the shared domain would match everyone)
+    private final SearchIndex<Course> courseSearch =
+            new SearchIndex<>(c -> new String[] { c.getCode(), c.getTitle() }, c -> codeKey(c.getCode()));
+    private final SearchIndex<Student> studentSearch =
+            new SearchIndex<>(s -> new String[] { s.getFullName(), emailUser(s.getEmail()) }, null);
+    private final SearchIndex<Instructor> instructorSearch =
+            new SearchIndex<>(i -> new String[] { i.getFullName(), emailUser(i.getEmail()) }, null);
+
+    private volatile int nextStudentId = 1;
+    private volatile int nextInstructorId = 1;
+    private volatile int nextCourseId = 1;
+
+    public Registry(List<Student> students, List<Instructor> instructors, List<Course> courses) {
+        this.students = students;
+        this.instructors = instructors;
+        this.courses = courses;
+        rebuild();
+    }
+
+    /**
+     * Rebuilds every index from the backing lists (e.g. after the lists were replaced wholesale).
+     */
+    public synchronized void rebuild() {
+        studentsById.clear();
+        studentsByEmail.clear();
+        instructorsById.clear();
+        instructorsByEmail.clear();
+        coursesByCode.clear();
+        coursesById = new Course[64];
+        nextStudentId = 1;
+        nextInstructorId = 1;
+        nextCourseId = 1;
+
+        students.forEach(this::indexStudent);
+        instructors.forEach(this::indexInstructor);
+        // Courses that have an id first, so the ones without don't take those ids
+        courses.stream().filter(c -> c.getId() > 0).forEach(this::indexCourse);
+        courses.stream().filter(c -> c.getId() == 0).forEach(this::indexCourse);
+        studentSearch.reset(students);
+        instructorSearch.reset(instructors);
+        courseSearch.reset(courses);
+    }
+
+    // --- Students ---
+
+    public Student getStudent(int id) { return studentsById.get(id); }
+    public Student getStudentByEmail(String email) { return studentsByEmail.get(email); }
+    public boolean hasStudentEmail(String email) { return studentsByEmail.containsKey(email); }
+    public int nextStudentId() { return nextStudentId; }
+
+    /**
+     * Adds a student to the list and the indexes.
+     * @return false if the id or email is already registered.
+     */
+    public synchronized boolean addStudent(Student s) {
+        if (studentsById.containsKey(s.getId()) || studentsByEmail.containsKey(s.getEmail())) return false;
+        students.add(s);
+        indexStudent(s);
+        studentSearch.add(s);
+        return true;
+    }
+
+    /**
+     * Allocates the next student id and adds the student built from it in one step,
+     * so two concurrent callers can never be handed the same id.
+     * @return the new student, or null if the email is taken.
+     */
+    public synchronized Student addNewStudent(String name, String email) {
+        if (studentsByEmail.containsKey(email)) return null;
+        Student s = new Student(nextStudentId, name, email);
+        return addStudent(s) ? s : null;
+    }
+
+    /**
+     * Adds every student that does not clash with an existing id or email.
+     * @return the number of students actually added.
+     */
+    public synchronized int addStudents(Collection<Student> incoming) {
+        // Index first, then append in one call (the list may be copy-on-write)
+        List<Student> accepted = new ArrayList<>();
+        for (Student s : incoming) {
+            if (studentsById.containsKey(s.getId()) || studentsByEmail.containsKey(s.getEmail())) continue;
+            indexStudent(s);
+            accepted.add(s);
+        }
+        students.addAll(accepted);
+        studentSearch.addAll(accepted);
+        return accepted.size();
+    }
+
+    /**
+     * Replaces all students (used by the manual import which clears existing data).
+     */
+    public synchronized void replaceStudents(Collection<Student> incoming) {
+        students.clear();
+        studentsById.clear();
+        studentsByEmail.clear();
+        studentSearch.reset(List.of());
+        nextStudentId = 1;
+        addStudents(incoming);
+    }
+
+    private void indexStudent(Student s) {
+        studentsById.put(s.getId(), s);
+        studentsByEmail.put(s.getEmail(), s);
+        nextStudentId = Math.max(nextStudentId, s.getId() + 1);
+    }
+
+    // --- Instructors ---
+
+    public Instructor getInstructor(int id) { return instructorsById.get(id); }
+    public boolean hasInstructorEmail(String email) { return instructorsByEmail.containsKey(email); }
+    public int nextInstructorId() { return nextInstructorId; }
+
+    public synchronized Instructor addNewInstructor(String name, String email, String dept) {
+        if (instructorsByEmail.containsKey(email)) return null;
+        Instructor i = new Instructor(nextInstructorId, name, email, dept);
+        return addInstructor(i) ? i : null;
+    }
+
+    public synchronized boolean addInstructor(Instructor i) {
+        if (instructorsById.containsKey(i.getId()) || instructorsByEmail.containsKey(i.getEmail())) return false;
+        instructors.add(i);
+        indexInstructor(i);
+        instructorSearch.add(i);
+        return true;
+    }
+
+    public synchronized int addInstructors(Collection<Instructor> incoming) {
+        List<Instructor> accepted = new ArrayList<>();
+        for (Instructor i : incoming) {
+            if (instructorsById.containsKey(i.getId()) || instructorsByEmail.containsKey(i.getEmail())) continue;
+            indexInstructor(i);
+            accepted.add(i);
+        }
+        instructors.addAll(accepted);
+        instructorSearch.addAll(accepted);
+        return accepted.size();
+    }
+
+    private void indexInstructor(Instructor i) {
+        instructorsById.put(i.getId(), i);
+        instructorsByEmail.put(i.getEmail(), i);
+        nextInstructorId = Math.max(nextInstructorId, i.getId() + 1);
+    }
+
+    // --- Courses ---
+
+    public Course getCourseByCode(String code) {
+        return code == null ? null : coursesByCode.get(codeKey(code));
+    }
+
+    public boolean hasCourseCode(String code) { return coursesByCode.containsKey(codeKey(code)); }
+
+    /**
+     * @return the course with this id, or null.
+     */
+    public Course getCourse(int id) {
+        Course[] byId = coursesById;
+        return id > 0 && id < byId.length ? byId[id] : null;
+    }
+
+    public int nextCourseId() { return nextCourseId; }
+
+    /**
+     * Adds a course to the list and the indexes, giving it the next id if it has none.
+     * @return false if the code or id is already registered.
+     */
+    public synchronized boolean addCourse(Course c) {
+        if (hasCourseCode(c.getCode()) || getCourse(c.getId()) != null) return false;
+        indexCourse(c);
+        courses.add(c);
+        courseSearch.add(c);
+        return true;
+    }
+
+    /**
+     * Adds every course that does not clash with an existing code or id.
+     * @return the number of courses actually added.
+     */
+    public synchronized int addCourses(Collection<Course> incoming) {
+        List<Course> accepted = new ArrayList<>();
+        List<Course> withoutId = new ArrayList<>();
+        for (Course c : incoming) {
+            if (hasCourseCode(c.getCode()) || getCourse(c.getId()) != null) continue;
+            if (c.getId() == 0) {
+                withoutId.add(c); // given ids once every incoming id is taken
+                continue;
+            }
+            indexCourse(c);
+            accepted.add(c);
+        }
+        for (Course c : withoutId) {
+            if (hasCourseCode(c.getCode())) continue; // same code twice in 'incoming'
+            indexCourse(c);
+            accepted.add(c);
+        }
+        courses.addAll(accepted);
+        courseSearch.addAll(accepted);
+        return accepted.size();
+    }
+
+    private void indexCourse(Course c) {
+        if (c.getId() == 0) c.assignId(nextCourseId);
+        int id = c.getId();
+        Course[] byId = coursesById;
+        if (id >= byId.length) byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+        byId[id] = c;
+        coursesById = byId; // volatile write publishes the slot
+        coursesByCode.put(codeKey(c.getCode()), c);
+        nextCourseId = Math.max(nextCourseId, id + 1);
+    }
+
+    /**
+     * Read-only view of the code index, used by the importer to resolve enrollment rows.
+     * Keys are upper-cased codes.
+     */
+    public Map<String, Course> courseCodeIndex() { return Collections.unmodifiableMap(coursesByCode); }
+
+    /**
+     * Read-only view of the student id index, used by the importer to resolve enrollment rows.
+     */
+    public Map<Integer, Student> studentIdIndex() { return Collections.unmodifiableMap(studentsById); }
+
+    // --- Search ---
+
+    /**
+     * Courses matching every word of 'query' in their code or title (prefix, substring or
+     * typo-tolerant), best first.
+     */
+    public List<Course> searchCourses(String query, int limit) { return courseSearch.search(query, limit); }
+
+    /**
+     * Courses whose code starts with 'prefix' (case-insensitive), in code order.
+     */
+    public List<Course> coursesByCodePrefix(String prefix) { return courseSearch.keyPrefix(codeKey(prefix)); }
+
+    public List<Student> searchStudents(String query, int limit) { return studentSearch.search(query, limit); }
+
+    public List<Instructor> searchInstructors(String query, int limit) { return instructorSearch.search(query, limit); }
+
+    private static String emailUser(String email) {
+        int at = email == null ? -1 : email.indexOf('@');
+        return at < 0 ? email : email.substring(0, at);
+    }
+
+    // Course codes are compared case-insensitively throughout the app
+    static String codeKey(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+}
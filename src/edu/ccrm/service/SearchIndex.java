@@ -0,0 +1,555 @@
+package edu.ccrm.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Text search over the fields of a set of items (course code and title, person name and email).
+ *
+ * Fields are normalized (lower case, accents removed) and split into alphanumeric terms.
+ * A query matches an item when every query term matches one of the item's terms:
+ * exactly, as a prefix, as a substring (3+ characters), or, when the term occurs nowhere
+ * as typed, within one or two typos (insertions, deletions, substitutions, transpositions).
+ * Results are ranked by match quality, best first.
+ *
+ * The index is an immutable snapshot: a sorted term dictionary with the items of every term,
+ * trigram lists over the terms for substring and typo lookups, and optionally the items sorted
+ * by a key (the course code) for plain key-prefix queries. Items added later go to a small
+ * pending list that queries scan directly; once it outgrows a fraction of the snapshot, both
+ * are merged into a new snapshot. Queries never block; additions are serialized by the caller
+ * (the Registry).
+ */
+public class SearchIndex<T> {
+
+    // Characters are folded into 6 bits, so a trigram is an 18-bit number
+    private static final int TRIGRAMS = 1 << 18;
+    private static final int BOUNDARY = 0;
+    private static final int MIN_PENDING = 256;
+
+    private static final Pattern STRIP_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final double EXACT = 1.0, PREFIX = 0.8, SUBSTRING = 0.6, FUZZY = 0.5;
+
+    private final Function<T, String[]> fieldsOf;
+    private final Function<T, String> keyOf; // null when there are no key-prefix queries
+
+    private volatile State<T> state;
+
+    // A snapshot plus the items added since it was built; replaced as a whole
+    private static final class State<T> {
+        final Snapshot base;
+        final List<T> pending;
+
+        State(Snapshot base, List<T> pending) {
+            this.base = base;
+            this.pending = pending;
+        }
+    }
+
+    private static final class Snapshot {
+        final Object[] items;
+        final String[] terms;        // sorted, distinct
+        final int[] termStart;       // items of term t: postings[termStart[t] .. termStart[t + 1])
+        final int[] postings;
+        final int[] itemStart;       // terms of item i: itemTerms[itemStart[i] .. itemStart[i + 1])
+        final int[] itemTerms;
+        final int[] gramStart;       // terms containing trigram g: gramTerms[gramStart[g] .. gramStart[g + 1])
+        final int[] gramTerms;
+        final String[] keys;         // sorted, with the matching items in keyItems
+        final Object[] keyItems;
+
+        Snapshot(Object[] items, String[] terms, int[] termStart, int[] postings, int[] itemStart, int[] itemTerms,
+                 int[] gramStart, int[] gramTerms, String[] keys, Object[] keyItems) {
+            this.items = items;
+            this.terms = terms;
+            this.termStart = termStart;
+            this.postings = postings;
+            this.itemStart = itemStart;
+            this.itemTerms = itemTerms;
+            this.gramStart = gramStart;
+            this.gramTerms = gramTerms;
+            this.keys = keys;
+            this.keyItems = keyItems;
+        }
+    }
+
+    /**
+     * @param fieldsOf the searchable text of an item.
+     * @param keyOf    the key used by keyPrefix(), or null.
+     */
+    public SearchIndex(Function<T, String[]> fieldsOf, Function<T, String> keyOf) {
+        this.fieldsOf = fieldsOf;
+        this.keyOf = keyOf;
+        this.state = new State<>(build(List.of()), List.of());
+    }
+
+    public int size() {
+        State<T> s = state;
+        return s.base.items.length + s.pending.size();
+    }
+
+    // --- Updates (callers serialize these) ---
+
+    public synchronized void add(T item) {
+        addAll(List.of(item));
+    }
+
+    public synchronized void addAll(Collection<? extends T> items) {
+        if (items.isEmpty()) return;
+        State<T> s = state;
+        List<T> pending = new ArrayList<>(s.pending.size() + items.size());
+        pending.addAll(s.pending);
+        pending.addAll(items);
+        if (pending.size() <= Math.max(MIN_PENDING, s.base.items.length / 16)) {
+            state = new State<>(s.base, List.copyOf(pending));
+            return;
+        }
+        List<T> all = new ArrayList<>(s.base.items.length + pending.size());
+        for (Object o : s.base.items) all.add(cast(o));
+        all.addAll(pending);
+        state = new State<>(build(all), List.of());
+    }
+
+    /**
+     * Replaces the whole content with 'items'.
+     */
+    public synchronized void reset(Collection<? extends T> items) {
+        state = new State<>(build(new ArrayList<>(items)), List.of());
+    }
+
+    // --- Queries ---
+
+    /**
+     * @return the items whose key starts with 'prefix' (compared as given), in key order.
+     */
+    public List<T> keyPrefix(String prefix) {
+        if (keyOf == null) throw new IllegalStateException("No key configured for this index");
+        State<T> s = state;
+        String[] keys = s.base.keys;
+        List<T> result = new ArrayList<>();
+        for (int i = lowerBound(keys, prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            result.add(cast(s.base.keyItems[i]));
+        }
+        List<T> extra = new ArrayList<>();
+        for (T item : s.pending) {
+            if (keyOf.apply(item).startsWith(prefix)) extra.add(item);
+        }
+        if (extra.isEmpty()) return result;
+        result.addAll(extra);
+        result.sort(Comparator.comparing(keyOf));
+        return result;
+    }
+
+    /**
+     * @return up to 'limit' items matching every term of 'query', best matches first
+     *         (ties mostly in the order the items were added).
+     */
+    public List<T> search(String query, int limit) {
+        List<String> qTerms = new ArrayList<>(terms(query));
+        if (qTerms.isEmpty() || limit <= 0) return List.of();
+        State<T> s = state;
+        Snapshot snap = s.base;
+
+        // Find the dictionary terms each query term matches, and drive from the most selective
+        TermMatches[] matches = new TermMatches[qTerms.size()];
+        int driver = 0;
+        double bestTotal = 0;
+        for (int q = 0; q < matches.length; q++) {
+            matches[q] = matchingTerms(snap, qTerms.get(q));
+            if (matches[q].postingCount(snap) < matches[driver].postingCount(snap)) driver = q;
+            bestTotal += matches[q].best();
+        }
+
+        // The driver's terms, best scoring first; an item's total can't exceed what the other
+        // query terms could add to its driver score, so the walk stops once that can't beat
+        // the results already kept
+        Comparator<Hit<T>> better = Comparator.<Hit<T>>comparingDouble(h -> h.score).reversed()
+                .thenComparingInt(h -> h.order);
+        PriorityQueue<Hit<T>> kept = new PriorityQueue<>(better.reversed()); // worst on top
+        TermMatches d = matches[driver];
+        double othersBest = bestTotal - d.best();
+        Set<Integer> seen = new HashSet<>();
+        walk:
+        for (int k = 0; k < d.termCount(); k++) {
+            int t = d.driverTerm(k);
+            double bound = d.score(t) + othersBest;
+            for (int p = snap.termStart[t]; p < snap.termStart[t + 1]; p++) {
+                if (kept.size() == limit && kept.peek().score >= bound) break walk;
+                int item = snap.postings[p];
+                if (!seen.add(item)) continue;
+                double total = 0;
+                for (TermMatches m : matches) {
+                    double best = 0;
+                    for (int i = snap.itemStart[item]; i < snap.itemStart[item + 1]; i++) {
+                        best = Math.max(best, m.score(snap.itemTerms[i]));
+                    }
+                    if (best == 0) {
+                        total = 0;
+                        break;
+                    }
+                    total += best;
+                }
+                if (total > 0) keep(kept, new Hit<>(cast(snap.items[item]), total, item), limit);
+            }
+        }
+
+        // Items added since the snapshot are matched term by term
+        for (int i = 0; i < s.pending.size(); i++) {
+            T item = s.pending.get(i);
+            Set<String> itemTerms = termsOf(item);
+            double total = 0;
+            for (String qt : qTerms) {
+                double best = 0;
+                for (String term : itemTerms) best = Math.max(best, score(qt, term));
+                if (best == 0) {
+                    total = 0;
+                    break;
+                }
+                total += best;
+            }
+            if (total > 0) keep(kept, new Hit<>(item, total, snap.items.length + i), limit);
+        }
+
+        List<Hit<T>> sorted = new ArrayList<>(kept);
+        sorted.sort(better);
+        List<T> result = new ArrayList<>(sorted.size());
+        for (Hit<T> h : sorted) result.add(h.item);
+        return result;
+    }
+
+    private static final class Hit<T> {
+        final T item;
+        final double score;
+        final int order;
+
+        Hit(T item, double score, int order) {
+            this.item = item;
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    private static <T> void keep(PriorityQueue<Hit<T>> kept, Hit<T> hit, int limit) {
+        kept.add(hit);
+        if (kept.size() > limit) kept.poll();
+    }
+
+    /**
+     * The dictionary terms one query term matches. Exact and prefix matches are a contiguous
+     * range of the sorted dictionary and are never listed one by one; substring and typo
+     * matches are listed, sorted by term, with their scores.
+     */
+    private static final class TermMatches {
+        int exact = -1;
+        int prefixFrom, prefixTo;
+        int[] others = new int[0];
+        double[] otherScores = new double[0];
+        int[] othersByScore; // 'others', best score first
+
+        double score(int t) {
+            if (t == exact) return EXACT;
+            if (t >= prefixFrom && t < prefixTo) return PREFIX;
+            int i = Arrays.binarySearch(others, t);
+            return i >= 0 ? otherScores[i] : 0;
+        }
+
+        // The k-th matched term, best score first: exact, the rest of the prefix range, others
+        int driverTerm(int k) {
+            if (exact >= 0) {
+                if (k == 0) return exact;
+                k--;
+            }
+            int inRange = prefixTo - prefixFrom - (exact >= 0 ? 1 : 0);
+            if (k < inRange) return prefixFrom + (exact >= 0 ? 1 : 0) + k;
+            return othersByScore[k - inRange];
+        }
+
+        int termCount() {
+            return prefixTo - prefixFrom + others.length;
+        }
+
+        double best() {
+            if (exact >= 0) return EXACT;
+            if (prefixTo > prefixFrom) return PREFIX;
+            double best = 0;
+            for (double s : otherScores) best = Math.max(best, s);
+            return best;
+        }
+
+        // Items reached through these terms (counting an item once per term)
+        long postingCount(Snapshot snap) {
+            long n = snap.termStart[prefixTo] - snap.termStart[prefixFrom];
+            for (int t : others) n += snap.termStart[t + 1] - snap.termStart[t];
+            return n;
+        }
+    }
+
+    private static TermMatches matchingTerms(Snapshot snap, String qt) {
+        TermMatches m = new TermMatches();
+        String[] terms = snap.terms;
+        m.prefixFrom = lowerBound(terms, qt);
+        m.prefixTo = lowerBound(terms, qt + Character.MAX_VALUE);
+        if (m.prefixTo > m.prefixFrom && terms[m.prefixFrom].equals(qt)) m.exact = m.prefixFrom;
+
+        Map<Integer, Double> others = new HashMap<>();
+        if (qt.length() >= 3) {
+            // Substring: terms holding the query's rarest trigram, verified
+            int[] grams = trigrams(qt, false);
+            int rarest = grams[0];
+            for (int g : grams) {
+                if (count(snap, g) < count(snap, rarest)) rarest = g;
+            }
+            for (int p = snap.gramStart[rarest]; p < snap.gramStart[rarest + 1]; p++) {
+                int t = snap.gramTerms[p];
+                if ((t < m.prefixFrom || t >= m.prefixTo) && terms[t].contains(qt)) others.put(t, SUBSTRING);
+            }
+            // Typos are only considered when the term matches nothing as typed
+            if (m.prefixTo == m.prefixFrom && others.isEmpty()) fuzzyTerms(snap, qt, others);
+        }
+
+        m.others = others.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        m.otherScores = new double[m.others.length];
+        for (int i = 0; i < m.others.length; i++) m.otherScores[i] = others.get(m.others[i]);
+
+        Integer[] rest = others.keySet().toArray(new Integer[0]);
+        Arrays.sort(rest, Comparator.comparingDouble((Integer t) -> others.get(t)).reversed());
+        m.othersByScore = new int[rest.length];
+        for (int i = 0; i < rest.length; i++) m.othersByScore[i] = rest[i];
+        return m;
+    }
+
+    // Terms within the typo budget of 'qt'. Candidates share enough padded trigrams with it;
+    // for short terms, where one typo can break all of them, every term with the same first
+    // letter is a candidate instead.
+    private static void fuzzyTerms(Snapshot snap, String qt, Map<Integer, Double> result) {
+        int maxEdits = maxEdits(qt);
+        int[] grams = trigrams(qt, true);
+        int needed = grams.length - 4 * maxEdits; // one edit changes at most four trigrams
+
+        if (needed > 0) {
+            int[] shared = new int[snap.terms.length];
+            for (int g : distinct(grams)) {
+                for (int p = snap.gramStart[g]; p < snap.gramStart[g + 1]; p++) {
+                    int t = snap.gramTerms[p];
+                    if (++shared[t] == needed) addIfClose(snap, qt, t, maxEdits, result);
+                }
+            }
+        } else {
+            String first = qt.substring(0, 1);
+            for (int t = lowerBound(snap.terms, first); t < snap.terms.length && snap.terms[t].startsWith(first); t++) {
+                addIfClose(snap, qt, t, maxEdits, result);
+            }
+        }
+    }
+
+    private static void addIfClose(Snapshot snap, String qt, int t, int maxEdits, Map<Integer, Double> result) {
+        int d = editDistance(qt, snap.terms[t], maxEdits);
+        if (d <= maxEdits) result.put(t, FUZZY - 0.1 * d);
+    }
+
+    private static int count(Snapshot snap, int gram) {
+        return snap.gramStart[gram + 1] - snap.gramStart[gram];
+    }
+
+    // The same rules as the dictionary lookup, for a single pair of terms
+    private static double score(String qt, String term) {
+        if (term.equals(qt)) return EXACT;
+        if (term.startsWith(qt)) return PREFIX;
+        if (qt.length() < 3) return 0;
+        if (term.contains(qt)) return SUBSTRING;
+        int d = editDistance(qt, term, maxEdits(qt));
+        return d <= maxEdits(qt) ? FUZZY - 0.1 * d : 0;
+    }
+
+    private static int maxEdits(String qt) {
+        return qt.length() >= 8 ? 2 : 1;
+    }
+
+    /**
+     * Optimal string alignment distance (a transposition counts as one edit), or max + 1 once
+     * it is known to exceed 'max'.
+     */
+    static int editDistance(String a, String b, int max) {
+        int la = a.length(), lb = b.length();
+        if (Math.abs(la - lb) > max) return max + 1;
+        int[] prev2 = new int[lb + 1], prev = new int[lb + 1], cur = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) prev[j] = j;
+        for (int i = 1; i <= la; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= lb; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return Math.min(prev[lb], max + 1);
+    }
+
+    // --- Building ---
+
+    private Snapshot build(List<T> items) {
+        int n = items.size();
+
+        // Pass 1: number the distinct terms and record each item's terms by number
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> byId = new ArrayList<>();
+        int[] itemStart = new int[n + 1];
+        int[] itemTerms = new int[Math.max(16, n * 3)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            for (String term : termsOf(items.get(i))) {
+                Integer id = ids.get(term);
+                if (id == null) {
+                    id = byId.size();
+                    ids.put(term, id);
+                    byId.add(term);
+                }
+                if (size == itemTerms.length) itemTerms = Arrays.copyOf(itemTerms, size * 2);
+                itemTerms[size++] = id;
+            }
+            itemStart[i + 1] = size;
+        }
+        itemTerms = Arrays.copyOf(itemTerms, size);
+
+        // Renumber the terms in sorted order
+        String[] terms = byId.toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] rank = new int[terms.length];
+        for (int r = 0; r < terms.length; r++) rank[ids.get(terms[r])] = r;
+        for (int k = 0; k < size; k++) itemTerms[k] = rank[itemTerms[k]];
+
+        // Pass 2: postings per term, in item order
+        int[] termStart = new int[terms.length + 1];
+        for (int k = 0; k < size; k++) termStart[itemTerms[k] + 1]++;
+        for (int t = 0; t < terms.length; t++) termStart[t + 1] += termStart[t];
+        int[] postings = new int[size];
+        int[] fill = Arrays.copyOf(termStart, terms.length);
+        for (int i = 0; i < n; i++) {
+            for (int k = itemStart[i]; k < itemStart[i + 1]; k++) postings[fill[itemTerms[k]]++] = i;
+        }
+
+        // Trigram lists over the terms (each term listed once per distinct padded trigram)
+        // (computed twice rather than held, as there can be a term per item)
+        int[] gramStart = new int[TRIGRAMS + 1];
+        for (String term : terms) {
+            for (int g : distinct(trigrams(term, true))) gramStart[g + 1]++;
+        }
+        for (int g = 0; g < TRIGRAMS; g++) gramStart[g + 1] += gramStart[g];
+        int[] gramTerms = new int[gramStart[TRIGRAMS]];
+        int[] gramFill = Arrays.copyOf(gramStart, TRIGRAMS);
+        for (int t = 0; t < terms.length; t++) {
+            for (int g : distinct(trigrams(terms[t], true))) gramTerms[gramFill[g]++] = t;
+        }
+
+        String[] keys = new String[0];
+        Object[] keyItems = new Object[0];
+        if (keyOf != null) {
+            List<T> byKey = new ArrayList<>(items);
+            byKey.sort(Comparator.comparing(keyOf));
+            keys = new String[n];
+            keyItems = byKey.toArray();
+            for (int i = 0; i < n; i++) keys[i] = keyOf.apply(byKey.get(i));
+        }
+        return new Snapshot(items.toArray(), terms, termStart, postings, itemStart, itemTerms,
+                gramStart, gramTerms, keys, keyItems);
+    }
+
+    private Set<String> termsOf(T item) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String field : fieldsOf.apply(item)) result.addAll(terms(field));
+        return result;
+    }
+
+    /**
+     * Lower-cases 'text', strips accents and splits it into alphanumeric terms.
+     */
+    static Set<String> terms(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text == null) return result;
+        String normalized = isAscii(text) ? text.toLowerCase(Locale.ROOT)
+                : STRIP_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean word = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                result.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    // Trigrams of a term; padded ones include a boundary at each end ("$ab", "yz$")
+    private static int[] trigrams(String term, boolean padded) {
+        int[] codes = new int[term.length() + (padded ? 2 : 0)];
+        int k = 0;
+        if (padded) codes[k++] = BOUNDARY;
+        for (int i = 0; i < term.length(); i++) codes[k++] = fold(term.charAt(i));
+        if (padded) codes[k++] = BOUNDARY;
+        if (codes.length < 3) return new int[0];
+        int[] grams = new int[codes.length - 2];
+        for (int i = 0; i < grams.length; i++) grams[i] = codes[i] << 12 | codes[i + 1] << 6 | codes[i + 2];
+        return grams;
+    }
+
+    // a-z, 0-9 keep their own code; anything else shares the remaining ones
+    private static int fold(char c) {
+        if (c >= 'a' && c <= 'z') return 1 + (c - 'a');
+        if (c >= '0' && c <= '9') return 27 + (c - '0');
+        return 37 + c % 27;
+    }
+
+    private static int[] distinct(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        int n = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (i == 0 || copy[i] != copy[i - 1]) copy[n++] = copy[i];
+        }
+        return Arrays.copyOf(copy, n);
+    }
+
+    // First index whose value is >= key
+    private static int lowerBound(String[] sorted, String key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T) o;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+/**
+ * Callback for mutations made through CCRMService (e.g. the write-ahead journal).
+ * Bulk loads (load*, replaceStudents) restore persisted data and are not reported.
+ *
+ * Callbacks run on the mutating thread. Enrollment and grade callbacks run while the
+ * student's lock is held (so they arrive in mutation order per student); implementations
+ * must be quick and must not call back into the service.
+ */
+public interface ServiceListener {
+
+    default void studentAdded(Student s) { }
+
+    default void instructorAdded(Instructor i) { }
+
+    default void courseAdded(Course c) { }
+
+    default void enrolled(Enrollment e) { }
+
+    default void gradeRecorded(Enrollment e, Grade grade) { }
+
+    default void dropped(Enrollment e) { }
+
+    default void instructorAssigned(Course c, Instructor i) { }
+
+    default void capacityChanged(Course c, int capacity) { }
+}
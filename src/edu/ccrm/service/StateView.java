@@ -0,0 +1,40 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A consistent, read-only view of the service's data at one point in time, taken
+ * without blocking writers (see CCRMService.captureState). Every enrollment in the
+ * view refers to a student and course that are also in the view.
+ *
+ * Entities are shared with the live data, so mutable fields (grades, instructor
+ * assignments) may be newer than the capture time; the journal replays those on top.
+ */
+public final class StateView {
+    private final List<Student> students;
+    private final List<Instructor> instructors;
+    private final List<Course> courses;
+    private final List<Enrollment> enrollments;
+    private final LocalDateTime capturedAt;
+
+    StateView(List<Student> students, List<Instructor> instructors, List<Course> courses,
+              List<Enrollment> enrollments, LocalDateTime capturedAt) {
+        this.students = students;
+        this.instructors = instructors;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.capturedAt = capturedAt;
+    }
+
+    public List<Student> getStudents() { return students; }
+    public List<Instructor> getInstructors() { return instructors; }
+    public List<Course> getCourses() { return courses; }
+    public List<Enrollment> getEnrollments() { return enrollments; }
+    public LocalDateTime getCapturedAt() { return capturedAt; }
+}
@@ -0,0 +1,30 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDate;
+
+/**
+ * An Enrollment backed by a row of an EnrollmentStore: the grade lives in the store.
+ * Not linked to the student's running totals.
+ */
+final class StoredEnrollment extends Enrollment {
+    private final EnrollmentStore store;
+    private final int row;
+
+    StoredEnrollment(EnrollmentStore store, int row, Student student, Course course, Semester semester, LocalDate date) {
+        super(student, course, semester, date);
+        this.store = store;
+        this.row = row;
+    }
+
+    @Override
+    public Grade getGrade() { return store.grade(row); }
+
+    @Override
+    public void setGrade(Grade grade) { store.setGrade(row, grade); }
+}
@@ -0,0 +1,69 @@
+package edu.ccrm.util;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe, append-only list for large, mostly-growing data such as enrollments.
+ * Elements live in fixed-size chunks, so appends never copy existing data and readers
+ * never block: get/size/iteration only see elements published before the current size.
+ * Appends are serialized with a short lock; clear() is the only removal.
+ * modCount is deliberately left untouched so concurrent appends never make readers
+ * fail with ConcurrentModificationException.
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int CHUNK_BITS = 12; // 4096 elements per chunk
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Replaced (never mutated in place) when it needs to grow, so readers see a stable directory
+    private volatile AtomicReferenceArray<Object[]> chunks = new AtomicReferenceArray<>(16);
+    private volatile int size;
+
+    @Override
+    public synchronized boolean add(E element) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        AtomicReferenceArray<Object[]> dir = chunks;
+        if (chunk >= dir.length()) {
+            AtomicReferenceArray<Object[]> grown = new AtomicReferenceArray<>(dir.length() * 2);
+            for (int i = 0; i < dir.length(); i++) grown.set(i, dir.get(i));
+            chunks = dir = grown;
+        }
+        Object[] block = dir.get(chunk);
+        if (block == null) {
+            block = new Object[CHUNK_SIZE];
+            dir.set(chunk, block);
+        }
+        block[index & CHUNK_MASK] = element;
+        size = index + 1; // volatile write publishes the element
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends E> c) {
+        for (E e : c) add(e);
+        return !c.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (E) chunks.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        chunks = new AtomicReferenceArray<>(16);
+        size = 0;
+    }
+}
@@ -0,0 +1,372 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parallel size and integrity scanner for the backup store written by BackupUtil.
+ *
+ * Directories are walked on a fork-join pool, one task per directory, and sizes come from
+ * the BasicFileAttributes the walk already read (one stat per file). Each backup is
+ * checked against its manifest: every block must exist with the expected size and, when
+ * verifying, hash to its name.
+ *
+ * Results are cached between scans. Blocks and manifests are immutable (blocks are named
+ * by their content), so a backup's result stays valid until its manifest changes or a
+ * block disappears from the store; the block listing itself is only re-read for block
+ * directories whose modification time changed. A block that passed verification is not
+ * re-hashed for the scanner's lifetime, so in-place tampering is only caught by a new
+ * scanner. Create one scanner and reuse it.
+ */
+public class BackupScanner {
+
+    /**
+     * Health of one backup.
+     */
+    public static final class BackupStatus {
+        private final String name;
+        private final Instant created;
+        private final int fileCount;
+        private final long logicalBytes;
+        private final int missingBlocks;
+        private final int corruptBlocks;
+        private final boolean verified;
+
+        BackupStatus(String name, Instant created, int fileCount, long logicalBytes,
+                     int missingBlocks, int corruptBlocks, boolean verified) {
+            this.name = name;
+            this.created = created;
+            this.fileCount = fileCount;
+            this.logicalBytes = logicalBytes;
+            this.missingBlocks = missingBlocks;
+            this.corruptBlocks = corruptBlocks;
+            this.verified = verified;
+        }
+
+        public String getName() { return name; }
+        public Instant getCreated() { return created; }
+        public int getFileCount() { return fileCount; }
+        public long getLogicalBytes() { return logicalBytes; }
+        public int getMissingBlocks() { return missingBlocks; }
+        public int getCorruptBlocks() { return corruptBlocks; }
+        public boolean isVerified() { return verified; }
+        public boolean isHealthy() { return missingBlocks == 0 && corruptBlocks == 0; }
+
+        @Override
+        public String toString() {
+            String health = isHealthy() ? (verified ? "OK (verified)" : "OK")
+                    : String.format("DAMAGED (%d missing, %d corrupt blocks)", missingBlocks, corruptBlocks);
+            return String.format("%s | %d files | %.2f KB | %s", name, fileCount, logicalBytes / 1024.0, health);
+        }
+    }
+
+    /**
+     * Result of one scan of the whole store.
+     */
+    public static final class ScanResult {
+        private final List<BackupStatus> backups;
+        private final long storedBytes;
+        private final int blockCount;
+        private final int cachedBackups;
+
+        ScanResult(List<BackupStatus> backups, long storedBytes, int blockCount, int cachedBackups) {
+            this.backups = backups;
+            this.storedBytes = storedBytes;
+            this.blockCount = blockCount;
+            this.cachedBackups = cachedBackups;
+        }
+
+        public List<BackupStatus> getBackups() { return backups; }
+        /** Bytes actually on disk in the block store (each block counted once). */
+        public long getStoredBytes() { return storedBytes; }
+        public int getBlockCount() { return blockCount; }
+        /** How many backup results were served from the cache. */
+        public int getCachedBackups() { return cachedBackups; }
+
+        public long getLogicalBytes() {
+            return backups.stream().mapToLong(BackupStatus::getLogicalBytes).sum();
+        }
+
+        public List<BackupStatus> getDamaged() {
+            return backups.stream().filter(b -> !b.isHealthy()).toList();
+        }
+    }
+
+    // A cached listing of one block subdirectory (blocks/ab), valid while its mtime is unchanged
+    private static final class BlockDir {
+        final long modifiedMillis;
+        final Map<String, Long> sizes;
+
+        BlockDir(long modifiedMillis, Map<String, Long> sizes) {
+            this.modifiedMillis = modifiedMillis;
+            this.sizes = sizes;
+        }
+    }
+
+    // A cached backup result, valid while the manifest's mtime is unchanged
+    private static final class CachedStatus {
+        final long manifestModified;
+        final BackupStatus status;
+
+        CachedStatus(long manifestModified, BackupStatus status) {
+            this.manifestModified = manifestModified;
+            this.status = status;
+        }
+    }
+
+    private final Path backupRoot;
+    private final ForkJoinPool pool;
+
+    private final Map<String, BlockDir> blockDirs = new ConcurrentHashMap<>();
+    private final Map<String, CachedStatus> statuses = new ConcurrentHashMap<>();
+    private final Set<String> verifiedBlocks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param parallelism scan threads, at least 1 (Settings.Key.BACKUP_SCAN_THREADS).
+     */
+    public BackupScanner(Path backupRoot, int parallelism) {
+        this.backupRoot = backupRoot;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Scans every backup in the store.
+     * @param verify whether to re-hash block contents (blocks verified by an earlier scan are not re-read).
+     */
+    public synchronized ScanResult scan(boolean verify) throws IOException {
+        boolean blocksRemoved = refreshBlocks();
+        if (blocksRemoved) {
+            // Every cached result may now be wrong
+            statuses.clear();
+            verifiedBlocks.retainAll(allBlocks().keySet());
+        }
+        Map<String, Long> blocks = allBlocks();
+
+        Map<String, Long> manifests = listManifests();
+        statuses.keySet().retainAll(manifests.keySet());
+
+        List<String> names = new ArrayList<>(manifests.keySet());
+        Collections.sort(names);
+        BackupStatus[] results = new BackupStatus[names.size()];
+        List<Integer> toCheck = new ArrayList<>();
+        for (int k = 0; k < names.size(); k++) {
+            CachedStatus cached = statuses.get(names.get(k));
+            if (cached != null && cached.manifestModified == manifests.get(names.get(k))
+                    && (cached.status.isVerified() || !verify)) {
+                results[k] = cached.status;
+            } else {
+                toCheck.add(k);
+            }
+        }
+
+        try {
+            pool.submit(() -> toCheck.parallelStream().forEach(k -> {
+                String name = names.get(k);
+                try {
+                    results[k] = check(name, blocks, verify);
+                    statuses.put(name, new CachedStatus(manifests.get(name), results[k]));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })).get();
+        } catch (Exception e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e;
+            throw new IOException("Backup scan failed: " + cause.getMessage(), cause);
+        }
+
+        long stored = blocks.values().stream().mapToLong(Long::longValue).sum();
+        return new ScanResult(List.of(results), stored, blocks.size(), names.size() - toCheck.size());
+    }
+
+    private BackupStatus check(String name, Map<String, Long> blocks, boolean verify) throws IOException {
+        BackupUtil.Manifest manifest = BackupUtil.readManifest(backupRoot, name);
+        int missing = 0;
+        int corrupt = 0;
+        for (BackupUtil.FileEntry f : manifest.getFiles()) {
+            List<String> fileBlocks = f.getBlocks();
+            for (int i = 0; i < fileBlocks.size(); i++) {
+                String hash = fileBlocks.get(i);
+                // Every block is full-size except a file's last one
+                long expected = i < fileBlocks.size() - 1 ? BackupUtil.BLOCK_SIZE
+                        : f.getSize() - (long) BackupUtil.BLOCK_SIZE * (fileBlocks.size() - 1);
+                Long actual = blocks.get(hash);
+                if (actual == null) actual = statBlock(hash); // written after its directory was listed
+                if (actual == null) missing++;
+                else if (actual != expected) corrupt++;
+                else if (verify && !verifiedBlocks.contains(hash)) {
+                    if (hashMatches(hash)) verifiedBlocks.add(hash);
+                    else corrupt++;
+                }
+            }
+        }
+        return new BackupStatus(name, manifest.getCreated(), manifest.getFiles().size(), manifest.getTotalSize(),
+                missing, corrupt, verify);
+    }
+
+    private Long statBlock(String hash) {
+        try {
+            return Files.readAttributes(BackupUtil.blockPath(backupRoot, hash), BasicFileAttributes.class).size();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean hashMatches(String hash) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(BackupUtil.blockPath(backupRoot, hash))) {
+            int n;
+            while ((n = in.read(buffer)) > 0) digest.update(buffer, 0, n);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        return HexFormat.of().formatHex(digest.digest()).equals(hash);
+    }
+
+    // ---------------- Store listing ----------------
+
+    // Re-lists block subdirectories whose mtime changed; returns true if any block disappeared
+    private boolean refreshBlocks() throws IOException {
+        Path dir = BackupUtil.blockDir(backupRoot);
+        Map<String, Long> subdirs = new HashMap<>();
+        if (Files.isDirectory(dir)) {
+            listDirectory(dir, (p, attrs) -> {
+                if (attrs.isDirectory()) subdirs.put(p.getFileName().toString(), attrs.lastModifiedTime().toMillis());
+            });
+        }
+
+        boolean removed = !subdirs.keySet().containsAll(blockDirs.keySet());
+        blockDirs.keySet().retainAll(subdirs.keySet());
+
+        List<String> stale = new ArrayList<>();
+        subdirs.forEach((name, modified) -> {
+            BlockDir cached = blockDirs.get(name);
+            if (cached == null || cached.modifiedMillis != modified) stale.add(name);
+        });
+
+        AtomicBoolean lost = new AtomicBoolean();
+        try {
+            pool.submit(() -> stale.parallelStream().forEach(name -> {
+                Map<String, Long> sizes = new HashMap<>();
+                try {
+                    listDirectory(dir.resolve(name), (p, attrs) -> {
+                        String file = p.getFileName().toString();
+                        if (attrs.isRegularFile() && !file.endsWith(".tmp")) sizes.put(file, attrs.size());
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                BlockDir old = blockDirs.put(name, new BlockDir(subdirs.get(name), sizes));
+                if (old != null && !sizes.keySet().containsAll(old.sizes.keySet())) lost.set(true);
+            })).get();
+        } catch (Exception e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e;
+            throw new IOException("Backup scan failed: " + cause.getMessage(), cause);
+        }
+        return removed || lost.get();
+    }
+
+    private Map<String, Long> allBlocks() {
+        Map<String, Long> all = new HashMap<>();
+        blockDirs.values().forEach(d -> all.putAll(d.sizes));
+        return all;
+    }
+
+    // backup name -> manifest mtime
+    private Map<String, Long> listManifests() throws IOException {
+        Map<String, Long> result = new HashMap<>();
+        Path dir = BackupUtil.manifestDir(backupRoot);
+        if (!Files.isDirectory(dir)) return result;
+        listDirectory(dir, (p, attrs) -> {
+            String file = p.getFileName().toString();
+            if (attrs.isRegularFile() && file.endsWith(BackupUtil.MANIFEST_SUFFIX)) {
+                result.put(file.substring(0, file.length() - BackupUtil.MANIFEST_SUFFIX.length()),
+                        attrs.lastModifiedTime().toMillis());
+            }
+        });
+        return result;
+    }
+
+    private interface EntryVisitor {
+        void visit(Path path, BasicFileAttributes attrs);
+    }
+
+    // Lists one directory level; attributes come from the walk itself, no extra stat per entry
+    private static void listDirectory(Path dir, EntryVisitor visitor) throws IOException {
+        Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                visitor.visit(file, attrs);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // ---------------- Recursive size ----------------
+
+    /**
+     * Total size of all regular files under folder, walking subdirectories in parallel.
+     */
+    public static long totalSize(Path folder, ForkJoinPool pool) throws IOException {
+        if (!Files.exists(folder)) return 0;
+        try {
+            return pool.invoke(new SizeTask(folder));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long totalSize(Path folder) throws IOException {
+        return totalSize(folder, pool);
+    }
+
+    // One task per directory: files are summed from the walk's attributes, subdirectories forked
+    private static final class SizeTask extends RecursiveTask<Long> {
+        private final Path dir;
+
+        SizeTask(Path dir) { this.dir = dir; }
+
+        @Override
+        protected Long compute() {
+            List<SizeTask> children = new ArrayList<>();
+            long[] sum = new long[1];
+            try {
+                listDirectory(dir, (p, attrs) -> {
+                    if (attrs.isDirectory()) {
+                        SizeTask child = new SizeTask(p);
+                        child.fork();
+                        children.add(child);
+                    } else if (attrs.isRegularFile()) {
+                        sum[0] += attrs.size();
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                return 0L; // removed while scanning
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (SizeTask child : children) sum[0] += child.join();
+            return sum[0];
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
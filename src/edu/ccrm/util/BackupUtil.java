@@ -1,81 +1,413 @@
 package edu.ccrm.util;
 
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Op;
+
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Incremental, deduplicating backups of the data folder.
+ *
+ * Layout under the backup folder:
+ *   blocks/ab/abcd...    file content, split into fixed-size blocks stored once by SHA-256
+ *   manifests/backup_<timestamp>.manifest    one per backup: every file with its block list
+ *
+ * A backup only stores blocks that are not in the store yet, and files whose size and
+ * modification time match the previous backup are not even re-read. Any backup can be
+ * restored from its manifest; pruning removes manifests and then the blocks no longer used.
+ */
 public class BackupUtil {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
+    static final int BLOCK_SIZE = 1 << 20; // 1 MiB
+    private static final String MANIFEST_HEADER = "CCRM-BACKUP 1";
+    static final String MANIFEST_SUFFIX = ".manifest";
+
+    /**
+     * One file recorded in a manifest.
+     */
+    public static final class FileEntry {
+        private final String path; // relative, '/'-separated
+        private final long size;
+        private final long modifiedMillis;
+        private final String sha256;
+        private final List<String> blocks;
+
+        FileEntry(String path, long size, long modifiedMillis, String sha256, List<String> blocks) {
+            this.path = path;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.sha256 = sha256;
+            this.blocks = blocks;
+        }
+
+        public String getPath() { return path; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+        public List<String> getBlocks() { return blocks; }
+    }
+
+    /**
+     * A point-in-time backup: its name, creation time and files.
+     */
+    public static final class Manifest {
+        private final String name;
+        private final Instant created;
+        private final List<FileEntry> files;
+
+        Manifest(String name, Instant created, List<FileEntry> files) {
+            this.name = name;
+            this.created = created;
+            this.files = files;
+        }
+
+        public String getName() { return name; }
+        public Instant getCreated() { return created; }
+        public List<FileEntry> getFiles() { return files; }
+
+        public long getTotalSize() {
+            return files.stream().mapToLong(FileEntry::getSize).sum();
+        }
+    }
+
+    /**
+     * What a backup run did.
+     */
+    public static final class BackupSummary {
+        private final String name;
+        private final int fileCount;
+        private final long totalBytes;
+        private final long newBytes;
+
+        BackupSummary(String name, int fileCount, long totalBytes, long newBytes) {
+            this.name = name;
+            this.fileCount = fileCount;
+            this.totalBytes = totalBytes;
+            this.newBytes = newBytes;
+        }
+
+        public String getName() { return name; }
+        public int getFileCount() { return fileCount; }
+        public long getTotalBytes() { return totalBytes; }
+        public long getNewBytes() { return newBytes; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d files, %.2f KB (%.2f KB new)", name, fileCount, totalBytes / 1024.0, newBytes / 1024.0);
+        }
+    }
+
+    // ---------------- Backup ----------------
+
     /**
-     * Recursively backup the entire data folder to a timestamped folder.
+     * Backs up the data folder into the content-addressed store under backupRoot.
      * Uses Files.walkFileTree (a strong demonstration of NIO.2).
+     * @return the summary, or null if there is no data folder.
      */
-    public static Path backupData(Path dataFolder) throws IOException { // Changed return type to Path
+    public static BackupSummary backupData(Path dataFolder, Path backupRoot) throws IOException {
+        return Metrics.time(Op.BACKUP, () -> backup(dataFolder, backupRoot));
+    }
+
+    private static BackupSummary backup(Path dataFolder, Path backupRoot) throws IOException {
         if (!Files.exists(dataFolder)) {
             System.out.println("No data folder found to backup.");
             return null;
         }
+        Files.createDirectories(manifestDir(backupRoot));
+        Files.createDirectories(blockDir(backupRoot));
 
-        String timestamp = LocalDateTime.now().format(formatter);
-        Path backupFolder = dataFolder.resolveSibling("backup_" + timestamp);
-        Files.createDirectories(backupFolder);
+        // Files unchanged since the latest backup reuse its block list without being read
+        Map<String, FileEntry> previous = new HashMap<>();
+        List<String> existing = listBackups(backupRoot);
+        if (!existing.isEmpty()) {
+            for (FileEntry f : readManifest(backupRoot, existing.get(existing.size() - 1)).getFiles()) {
+                previous.put(f.getPath(), f);
+            }
+        }
+
+        List<FileEntry> entries = new ArrayList<>();
+        long[] newBytes = new long[1];
+        MessageDigest blockDigest = sha256();
+        MessageDigest fileDigest = sha256();
+        byte[] buffer = new byte[BLOCK_SIZE];
 
-        // Recursively copy all files and subfolders using Files.walkFileTree (robust method)
         Files.walkFileTree(dataFolder, new SimpleFileVisitor<>() {
             @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                // Ensure we don't try to copy the root data folder into itself if dataFolder is used directly
-                if (dir.equals(dataFolder)) {
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile() || file.getFileName().toString().endsWith(".tmp")) {
+                    return FileVisitResult.CONTINUE; // in-progress atomic writes
+                }
+                String rel = relativeName(dataFolder, file);
+                long modified = attrs.lastModifiedTime().toMillis();
+
+                FileEntry prior = previous.get(rel);
+                if (prior != null && prior.getSize() == attrs.size() && prior.modifiedMillis == modified
+                        && blocksPresent(backupRoot, prior)) {
+                    entries.add(prior);
                     return FileVisitResult.CONTINUE;
                 }
-                Path targetDir = backupFolder.resolve(dataFolder.relativize(dir));
-                Files.createDirectories(targetDir);
-                return FileVisitResult.CONTINUE;
-            }
 
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                Path targetFile = backupFolder.resolve(dataFolder.relativize(file));
-                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                List<String> blocks = new ArrayList<>();
+                long size = 0;
+                fileDigest.reset();
+                try (InputStream in = Files.newInputStream(file)) {
+                    int n;
+                    while ((n = in.readNBytes(buffer, 0, BLOCK_SIZE)) > 0) {
+                        blockDigest.reset();
+                        blockDigest.update(buffer, 0, n);
+                        String hash = HexFormat.of().formatHex(blockDigest.digest());
+                        if (storeBlock(backupRoot, hash, buffer, n)) newBytes[0] += n;
+                        fileDigest.update(buffer, 0, n);
+                        blocks.add(hash);
+                        size += n;
+                    }
+                }
+                entries.add(new FileEntry(rel, size, modified, HexFormat.of().formatHex(fileDigest.digest()), blocks));
                 return FileVisitResult.CONTINUE;
             }
         });
 
-        System.out.println("Backup completed: " + backupFolder.getFileName());
-        
-        // Return the path for use in the CLI (to display size)
-        return backupFolder; 
+        String name = newBackupName(backupRoot);
+        writeManifest(backupRoot, new Manifest(name, Instant.now(), entries));
+
+        long total = entries.stream().mapToLong(FileEntry::getSize).sum();
+        return new BackupSummary(name, entries.size(), total, newBytes[0]);
+    }
+
+    private static String relativeName(Path root, Path file) {
+        StringJoiner joined = new StringJoiner("/");
+        for (Path part : root.relativize(file)) joined.add(part.toString());
+        return joined.toString();
+    }
+
+    private static boolean blocksPresent(Path backupRoot, FileEntry entry) {
+        for (String hash : entry.getBlocks()) {
+            if (!Files.exists(blockPath(backupRoot, hash))) return false;
+        }
+        return true;
+    }
+
+    // Returns true if the block was new to the store
+    private static boolean storeBlock(Path backupRoot, String hash, byte[] data, int length) throws IOException {
+        Path target = blockPath(backupRoot, hash);
+        if (Files.exists(target)) return false;
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(data, 0, length);
+            }
+            moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    private static String newBackupName(Path backupRoot) {
+        String base = "backup_" + LocalDateTime.now().format(formatter);
+        String name = base;
+        for (int k = 1; Files.exists(manifestPath(backupRoot, name)); k++) name = base + "_" + k;
+        return name;
+    }
+
+    // ---------------- Restore ----------------
+
+    /**
+     * Reconstructs a backup into targetDir, verifying every block against its hash.
+     * Each file is written to a temp file and moved into place, so a failed restore
+     * never leaves a partially written file.
+     * @return the number of files restored.
+     */
+    public static int restore(Path backupRoot, String backupName, Path targetDir) throws IOException {
+        return Metrics.time(Op.RESTORE, () -> restoreTimed(backupRoot, backupName, targetDir));
+    }
+
+    private static int restoreTimed(Path backupRoot, String backupName, Path targetDir) throws IOException {
+        Manifest manifest = readManifest(backupRoot, backupName);
+        MessageDigest digest = sha256();
+
+        for (FileEntry f : manifest.getFiles()) {
+            Path target = targetDir.resolve(f.getPath().replace("/", targetDir.getFileSystem().getSeparator()));
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    for (String hash : f.getBlocks()) {
+                        byte[] block = Files.readAllBytes(blockPath(backupRoot, hash));
+                        digest.reset();
+                        if (!HexFormat.of().formatHex(digest.digest(block)).equals(hash)) {
+                            throw new IOException("Corrupt backup block " + hash + " in " + f.getPath());
+                        }
+                        out.write(block);
+                    }
+                }
+                moveAtomically(temp, target);
+                Files.setLastModifiedTime(target, FileTime.fromMillis(f.modifiedMillis));
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return manifest.getFiles().size();
+    }
+
+    // ---------------- Retention ----------------
+
+    /**
+     * Deletes backups beyond the newest keepCount and those older than maxAge (the newest
+     * backup is always kept), then removes blocks no remaining backup refers to.
+     * @return the number of backups deleted.
+     */
+    public static int prune(Path backupRoot, int keepCount, Duration maxAge) throws IOException {
+        return Metrics.time(Op.PRUNE_BACKUPS, () -> pruneTimed(backupRoot, keepCount, maxAge));
+    }
+
+    private static int pruneTimed(Path backupRoot, int keepCount, Duration maxAge) throws IOException {
+        List<String> names = listBackups(backupRoot);
+        if (names.isEmpty()) return 0;
+
+        Instant cutoff = Instant.now().minus(maxAge);
+        int deleted = 0;
+        for (int k = 0; k < names.size() - 1; k++) {
+            boolean beyondCount = k < names.size() - Math.max(keepCount, 1);
+            if (beyondCount || readManifest(backupRoot, names.get(k)).getCreated().isBefore(cutoff)) {
+                Files.delete(manifestPath(backupRoot, names.get(k)));
+                deleted++;
+            }
+        }
+        if (deleted > 0) collectGarbage(backupRoot);
+        return deleted;
+    }
+
+    // Mark-and-sweep over the block store
+    private static void collectGarbage(Path backupRoot) throws IOException {
+        Set<String> live = new HashSet<>();
+        for (String name : listBackups(backupRoot)) {
+            for (FileEntry f : readManifest(backupRoot, name).getFiles()) live.addAll(f.getBlocks());
+        }
+        try (var walk = Files.walk(blockDir(backupRoot))) {
+            for (Path block : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                if (!live.contains(block.getFileName().toString())) Files.delete(block);
+            }
+        }
+    }
+
+    // ---------------- Manifests ----------------
+
+    /**
+     * @return the names of all backups, oldest first.
+     */
+    public static List<String> listBackups(Path backupRoot) throws IOException {
+        Path dir = manifestDir(backupRoot);
+        if (!Files.isDirectory(dir)) return Collections.emptyList();
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + MANIFEST_SUFFIX)) {
+            for (Path p : stream) {
+                String file = p.getFileName().toString();
+                names.add(file.substring(0, file.length() - MANIFEST_SUFFIX.length()));
+            }
+        }
+        // Timestamped names sort chronologically (a same-second suffix sorts after its base)
+        Collections.sort(names);
+        return names;
+    }
+
+    // Format: header, "created <epoch millis>", then one line per file:
+    //   size \t modified millis \t file sha256 \t block,block,... \t relative path
+    public static Manifest readManifest(Path backupRoot, String name) throws IOException {
+        Path path = manifestPath(backupRoot, name);
+        if (!Files.exists(path)) throw new NoSuchFileException("No such backup: " + name);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.size() < 2 || !lines.get(0).equals(MANIFEST_HEADER) || !lines.get(1).startsWith("created ")) {
+            throw new IOException("Not a backup manifest: " + path);
+        }
+        try {
+            Instant created = Instant.ofEpochMilli(Long.parseLong(lines.get(1).substring(8)));
+            List<FileEntry> files = new ArrayList<>(lines.size() - 2);
+            for (String line : lines.subList(2, lines.size())) {
+                if (line.isEmpty()) continue;
+                String[] f = line.split("\t", 5);
+                List<String> blocks = f[3].isEmpty() ? List.of() : List.of(f[3].split(","));
+                files.add(new FileEntry(f[4], Long.parseLong(f[0]), Long.parseLong(f[1]), f[2], blocks));
+            }
+            return new Manifest(name, created, files);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt backup manifest " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeManifest(Path backupRoot, Manifest manifest) throws IOException {
+        Path target = manifestPath(backupRoot, manifest.getName());
+        Path temp = Files.createTempFile(target.getParent(), manifest.getName(), ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(MANIFEST_HEADER);
+                out.newLine();
+                out.write("created " + manifest.getCreated().toEpochMilli());
+                out.newLine();
+                for (FileEntry f : manifest.getFiles()) {
+                    out.write(f.getSize() + "\t" + f.modifiedMillis + "\t" + f.getSha256() + "\t"
+                            + String.join(",", f.getBlocks()) + "\t" + f.getPath());
+                    out.newLine();
+                }
+            }
+            moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static Path manifestDir(Path backupRoot) { return backupRoot.resolve("manifests"); }
+    static Path blockDir(Path backupRoot) { return backupRoot.resolve("blocks"); }
+
+    private static Path manifestPath(Path backupRoot, String name) {
+        return manifestDir(backupRoot).resolve(name + MANIFEST_SUFFIX);
+    }
+
+    static Path blockPath(Path backupRoot, String hash) {
+        return blockDir(backupRoot).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static void moveAtomically(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // required on every JVM
+        }
     }
 
     /**
      * Calculate the total size of a folder recursively (mandatory recursion/Stream API demo).
+     * Subdirectories are walked in parallel (one fork-join task per directory) and sizes are
+     * taken from the attributes the walk already read.
      * @param folder The folder to calculate size for (e.g., the root backup folder).
      * @return The total size in bytes.
      */
     public static long calculateSizeRecursive(Path folder) throws IOException {
-        if (!Files.exists(folder)) return 0;
-        
-        // Use Files.walk() and the Stream API for aggregation (MANDATORY REQUIREMENT)
-        try (var walk = Files.walk(folder)) {
-            return walk
-                // 1. Filter only regular files
-                .filter(Files::isRegularFile) 
-                // 2. Map path to file size (long)
-                .mapToLong(p -> {
-                    try {
-                        return Files.size(p);
-                    } catch (IOException e) {
-                        // Exception handling within Stream pipeline
-                        System.err.println("Warning: Could not get size for " + p + " during recursion.");
-                        return 0L;
-                    }
-                })
-                // 3. Aggregate the sum
-                .sum(); 
-        }
+        return BackupScanner.totalSize(folder, ForkJoinPool.commonPool());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,228 @@
+package edu.ccrm.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs named background tasks (autosave, backup) on one daemon thread, so they never
+ * overlap each other and never block the CLI.
+ *
+ * Requests are coalesced: asking for a task that is already queued does nothing, and
+ * asking while it runs queues exactly one more run afterwards (the data may have changed
+ * since it started). Tasks can also run periodically. The outcome and duration of each
+ * task's last run are kept for display.
+ */
+public class TaskScheduler {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * A background task; the returned text describes the outcome for the status display.
+     */
+    public interface Task {
+        String run() throws Exception;
+    }
+
+    /**
+     * Point-in-time status of one task.
+     */
+    public static final class TaskStatus {
+        private final String name;
+        private final boolean running;
+        private final boolean queued;
+        private final int runs;
+        private final LocalDateTime lastStart;
+        private final long lastDurationMillis;
+        private final boolean lastSucceeded;
+        private final String lastMessage;
+        private final Duration interval;
+
+        TaskStatus(Job job) {
+            this.name = job.name;
+            this.running = job.running;
+            this.queued = job.queued || job.rerun;
+            this.runs = job.runs;
+            this.lastStart = job.lastStart;
+            this.lastDurationMillis = job.lastDurationMillis;
+            this.lastSucceeded = job.lastSucceeded;
+            this.lastMessage = job.lastMessage;
+            this.interval = job.interval;
+        }
+
+        public String getName() { return name; }
+        public boolean isRunning() { return running; }
+        public boolean isQueued() { return queued; }
+        public int getRuns() { return runs; }
+        public LocalDateTime getLastStart() { return lastStart; }
+        public long getLastDurationMillis() { return lastDurationMillis; }
+        public boolean isLastSucceeded() { return lastSucceeded; }
+        public String getLastMessage() { return lastMessage; }
+
+        @Override
+        public String toString() {
+            String state = running ? "running" : (queued ? "queued" : "idle");
+            String every = interval == null ? "on request" : "every " + interval.toMinutes() + " min";
+            if (lastStart == null) return String.format("%s [%s, %s] never run", name, state, every);
+            return String.format("%s [%s, %s] last run %s took %d ms: %s - %s",
+                    name, state, every, lastStart.format(TIME), lastDurationMillis,
+                    lastSucceeded ? "OK" : "FAILED", lastMessage);
+        }
+    }
+
+    // Mutable state of a task; guarded by the Job's monitor
+    private static final class Job {
+        final String name;
+        final Task task;
+        Duration interval;
+        ScheduledFuture<?> periodic;
+        boolean queued;
+        boolean running;
+        boolean rerun;
+        int runs;
+        LocalDateTime lastStart;
+        long lastDurationMillis;
+        boolean lastSucceeded;
+        String lastMessage;
+
+        Job(String name, Task task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public TaskScheduler() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ccrm-background");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Registers a task. Register every task before requesting or scheduling any.
+     */
+    public synchronized void register(String name, Task task) {
+        if (jobs.containsKey(name)) throw new IllegalArgumentException("Task already registered: " + name);
+        jobs.put(name, new Job(name, task));
+    }
+
+    /**
+     * Requests the task every 'interval' (first run after one interval), replacing any earlier
+     * schedule of it. A zero or negative interval disables it.
+     */
+    public synchronized void schedule(String name, Duration interval) {
+        Job job = job(name);
+        boolean disabled = interval.isZero() || interval.isNegative();
+        synchronized (job) {
+            if (disabled ? job.interval == null : interval.equals(job.interval)) return; // unchanged
+        }
+        ScheduledFuture<?> next = null;
+        if (!disabled) {
+            long millis = interval.toMillis();
+            next = executor.scheduleWithFixedDelay(() -> request(name), millis, millis, TimeUnit.MILLISECONDS);
+        }
+        synchronized (job) {
+            if (job.periodic != null) job.periodic.cancel(false);
+            job.periodic = next;
+            job.interval = next == null ? null : interval;
+        }
+    }
+
+    /**
+     * Asks for a run of the task.
+     * @return true if a new run was queued, false if it was coalesced with a pending one.
+     */
+    public boolean request(String name) {
+        Job job = job(name);
+        synchronized (job) {
+            if (job.queued || job.rerun) return false;
+            if (job.running) {
+                job.rerun = true;
+                return true;
+            }
+            job.queued = true;
+        }
+        return submit(job);
+    }
+
+    private boolean submit(Job job) {
+        try {
+            executor.execute(() -> execute(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            synchronized (job) {
+                job.queued = false; // shutting down
+            }
+            return false;
+        }
+    }
+
+    private void execute(Job job) {
+        synchronized (job) {
+            job.queued = false;
+            job.running = true;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        long t0 = System.nanoTime();
+        boolean succeeded;
+        String message;
+        try {
+            message = job.task.run();
+            succeeded = true;
+        } catch (Exception e) {
+            message = e.getClass().getSimpleName() + ": " + e.getMessage();
+            succeeded = false;
+        }
+
+        boolean again;
+        synchronized (job) {
+            job.running = false;
+            job.runs++;
+            job.lastStart = start;
+            job.lastDurationMillis = (System.nanoTime() - t0) / 1_000_000;
+            job.lastSucceeded = succeeded;
+            job.lastMessage = message;
+            again = job.rerun;
+            job.rerun = false;
+            if (again) job.queued = true;
+        }
+        if (again) submit(job);
+    }
+
+    private synchronized Job job(String name) {
+        Job job = jobs.get(name);
+        if (job == null) throw new IllegalArgumentException("Unknown task: " + name);
+        return job;
+    }
+
+    public synchronized List<TaskStatus> status() {
+        List<TaskStatus> result = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            synchronized (job) {
+                result.add(new TaskStatus(job));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stops periodic runs and waits for the running and already queued runs to finish.
+     */
+    public void shutdown(Duration timeout) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}